@@ -34,8 +34,13 @@ import de.siegmar.fastcsv.reader.CsvContainer;
 import de.siegmar.fastcsv.reader.CsvReader;
 import de.siegmar.fastcsv.reader.CsvRow;
 import de.siegmar.fastcsv.writer.CsvWriter;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -127,6 +132,21 @@ public class JsonUtils {
         return JsonUtils.toJsonSafe(o, pretty);
     }
 
+    // streams to the file, so that a large result is never held in memory as one string
+    public static void toJson(Object o, File file) {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.exists()) {
+            parent.mkdirs();
+        }
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            JSONValue.writeJSONString(o, writer);
+            return;
+        } catch (Throwable t) {
+            logger.warn("object to json serialization failure, trying alternate approach: {}", t.getMessage());
+        }
+        FileUtils.writeToFile(file, toJsonSafe(o, false));
+    }
+
     public static byte[] toJsonBytes(Object o) {
         return toJson(o).getBytes(StandardCharsets.UTF_8);
     }
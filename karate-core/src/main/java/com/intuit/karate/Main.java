@@ -75,6 +75,9 @@ public class Main implements Callable<Void> {
     @Option(names = {"-W", "--watch"}, description = "watch (and hot-reload) mock server file for changes")
     boolean watch;    
 
+    @Option(names = {"--concurrent"}, description = "handle mock server requests concurrently instead of one at a time")
+    boolean concurrent;
+
     @Option(names = {"-S", "--serve"}, description = "app server using --workdir (experimental)")
      boolean serve;
 
@@ -382,7 +385,8 @@ public class Main implements Callable<Void> {
                 .feature(mock)
                 .certFile(cert)
                 .keyFile(key)
-                .watch(watch);
+                .watch(watch)
+                .concurrent(concurrent);
         if (ssl) {
             builder.https(port);
         } else {
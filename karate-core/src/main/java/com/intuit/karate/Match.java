@@ -24,6 +24,7 @@
 package com.intuit.karate;
 
 import com.intuit.karate.graal.JsEngine;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -62,6 +63,9 @@ public class Match {
 
     }
 
+    // max failures retained for the report, zero or less means no limit
+    public static final int DEFAULT_FAILURE_LIMIT = 100;
+
     static final Result PASS = new Result(true, null);
 
     static Result fail(String message) {
@@ -74,6 +78,20 @@ public class Match {
 
     static class RegexValidator implements Validator {
 
+        private static final int CACHE_SIZE = 256;
+
+        // regex text to compiled validator, lru-bounded since the text can be dynamic
+        static final Map<String, RegexValidator> CACHE = Collections.synchronizedMap(new LinkedHashMap<String, RegexValidator>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RegexValidator> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        });
+
+        static RegexValidator of(String regex) {
+            return CACHE.computeIfAbsent(regex, RegexValidator::new);
+        }
+
         private final Pattern pattern;
 
         public RegexValidator(String regex) {
@@ -411,7 +429,11 @@ public class Match {
     }
 
     public static Result execute(JsEngine js, Type matchType, Object actual, Object expected) {
-        MatchOperation mo = new MatchOperation(js, matchType, new Value(actual), new Value(expected));
+        return execute(js, matchType, actual, expected, DEFAULT_FAILURE_LIMIT);
+    }
+
+    public static Result execute(JsEngine js, Type matchType, Object actual, Object expected, int failureLimit) {
+        MatchOperation mo = new MatchOperation(js, failureLimit, matchType, new Value(actual), new Value(expected));
         mo.execute();
         if (mo.pass) {
             return PASS;
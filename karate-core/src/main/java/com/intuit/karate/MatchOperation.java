@@ -26,9 +26,11 @@ package com.intuit.karate;
 import com.intuit.karate.graal.JsEngine;
 import com.intuit.karate.graal.JsValue;
 import java.math.BigDecimal;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -48,31 +50,38 @@ public class MatchOperation {
     final Match.Value actual;
     final Match.Value expected;
     final List<MatchOperation> failures;
+    final int failureLimit;
 
     boolean pass = true;
     private String failReason;
+    private int failuresDropped; // only on the root
+    // only on the root, one per open speculative match: the index in failures
+    // where it started, and how many of its own failures were evicted
+    private Deque<int[]> speculations;
 
     MatchOperation(Match.Type type, Match.Value actual, Match.Value expected) {
-        this(JsEngine.global(), null, type, actual, expected);
+        this(JsEngine.global(), Match.DEFAULT_FAILURE_LIMIT, null, type, actual, expected);
     }
 
-    MatchOperation(JsEngine js, Match.Type type, Match.Value actual, Match.Value expected) {
-        this(js, null, type, actual, expected);
+    MatchOperation(JsEngine js, int failureLimit, Match.Type type, Match.Value actual, Match.Value expected) {
+        this(js, failureLimit, null, type, actual, expected);
     }
 
     MatchOperation(Match.Context context, Match.Type type, Match.Value actual, Match.Value expected) {
-        this(null, context, type, actual, expected);
+        this(null, context.root.failureLimit, context, type, actual, expected);
     }
 
-    private MatchOperation(JsEngine js, Match.Context context, Match.Type type, Match.Value actual, Match.Value expected) {
+    private MatchOperation(JsEngine js, int failureLimit, Match.Context context, Match.Type type, Match.Value actual, Match.Value expected) {
         this.type = type;
         this.actual = actual;
         this.expected = expected;
+        this.failureLimit = failureLimit;
         if (context == null) {
             if (js == null) {
                 js = JsEngine.global();
             }
             this.failures = new ArrayList();
+            this.speculations = new ArrayDeque();
             if (actual.isXml()) {
                 this.context = new Match.Context(js, this, true, 0, "/", "", -1);
             } else {
@@ -145,6 +154,20 @@ public class MatchOperation {
     }
 
     boolean execute() {
+        context.root.failureMark();
+        try {
+            executeInternal();
+        } finally {
+            if (pass) { // failures recorded while getting here were speculative
+                context.root.discardFailures();
+            } else {
+                context.root.keepFailures();
+            }
+        }
+        return pass;
+    }
+
+    private boolean executeInternal() {
         switch (type) {
             case EACH_CONTAINS:
             case EACH_NOT_CONTAINS:
@@ -274,17 +297,13 @@ public class MatchOperation {
                         String bracketContents = macro.substring(1, closeBracketPos);
                         List listAct = actual.getValue();
                         int listSize = listAct.size();
-                        context.JS.put("$", context.root.actual.getValue());
-                        context.JS.put("_", listSize);
                         String sizeExpr;
                         if (bracketContents.indexOf('_') != -1) { // #[_ < 5] 
                             sizeExpr = bracketContents;
                         } else { // #[5] | #[$.foo] 
                             sizeExpr = bracketContents + " == _";
                         }
-                        JsValue jv = context.JS.eval(sizeExpr);
-                        context.JS.bindings.removeMember("$");
-                        context.JS.bindings.removeMember("_");
+                        JsValue jv = context.JS.evalMacro(sizeExpr, listSize, context.root.actual.getValue());
                         if (!jv.isTrue()) {
                             return fail("actual array length is " + listSize);
                         }
@@ -334,7 +353,7 @@ public class MatchOperation {
 
                     if (validatorName.startsWith("regex")) {
                         String regex = validatorName.substring(5).trim();
-                        validator = new Match.RegexValidator(regex);
+                        validator = Match.RegexValidator.of(regex);
                     } else {
                         validator = Match.VALIDATORS.get(validatorName);
                     }
@@ -365,11 +384,7 @@ public class MatchOperation {
                 }
                 macro = StringUtils.trimToNull(macro);
                 if (macro != null && questionPos != -1) {
-                    context.JS.put("$", context.root.actual.getValue());
-                    context.JS.put("_", actual.getValue());
-                    JsValue jv = context.JS.eval(macro);
-                    context.JS.bindings.removeMember("$");
-                    context.JS.bindings.removeMember("_");
+                    JsValue jv = context.JS.evalMacro(macro, actual.getValue(), context.root.actual.getValue());
                     if (!jv.isTrue()) {
                         return fail("evaluated to 'false'");
                     }
@@ -528,33 +543,43 @@ public class MatchOperation {
                 if (type == Match.Type.CONTAINS_ONLY && expListCount != actListCount) {
                     return fail("actual array length is not equal to expected - " + actListCount + ":" + expListCount);
                 }
+                boolean indexable = type != Match.Type.CONTAINS_DEEP && type != Match.Type.CONTAINS_ANY_DEEP
+                        && (long) actListCount * expListCount > INDEX_THRESHOLD;
+                ListIndex index = null; // built lazily, only if there is a literal expected item
                 for (Object exp : expList) { // for each item in the expected list
+                    context.root.failureMark();
                     boolean found = false;
                     Match.Value expListValue = new Match.Value(exp);
-                    for (int i = 0; i < actListCount; i++) {
-                        Match.Value actListValue = new Match.Value(actList.get(i));
-                        Match.Type childMatchType;
-                        switch (type) {
-                            case CONTAINS_DEEP:
-                                childMatchType = actListValue.isMapOrListOrXml() ? Match.Type.CONTAINS_DEEP : Match.Type.EQUALS;
-                                break;
-                            case CONTAINS_ANY_DEEP:
-                                childMatchType = actListValue.isMapOrListOrXml() ? Match.Type.CONTAINS_ANY : Match.Type.EQUALS;
-                                break;
-                            default:
-                                childMatchType = Match.Type.EQUALS;
+                    String expKey = indexable ? toKey(exp, true) : null;
+                    if (expKey != null) { // no macros, plain equality against the hashed items
+                        if (index == null) {
+                            index = new ListIndex(actList);
                         }
-                        MatchOperation mo = new MatchOperation(context.descend(i), childMatchType, actListValue, expListValue);
-                        mo.execute();
-                        if (mo.pass) {
-                            if (type == Match.Type.CONTAINS_ANY || type == Match.Type.CONTAINS_ANY_DEEP) {
-                                return true; // exit early
-                            } else {
+                        found = index.keys.contains(expKey);
+                        if (!found) {
+                            for (int i : index.others) {
+                                if (actualItemMatches(actList, i, expListValue)) {
+                                    found = true;
+                                    break;
+                                }
+                            }
+                        }
+                    } else {
+                        for (int i = 0; i < actListCount; i++) {
+                            if (actualItemMatches(actList, i, expListValue)) {
                                 found = true;
                                 break; // next item in expected list
                             }
                         }
                     }
+                    if (found) { // mis-matches while searching are not of interest
+                        context.root.discardFailures();
+                        if (type == Match.Type.CONTAINS_ANY || type == Match.Type.CONTAINS_ANY_DEEP) {
+                            return true; // exit early
+                        }
+                    } else {
+                        context.root.keepFailures();
+                    }
                     if (!found && type != Match.Type.CONTAINS_ANY && type != Match.Type.CONTAINS_ANY_DEEP) { // if we reached here, all items in the actual list were scanned
                         return fail("actual array does not contain expected item - " + expListValue.getAsString());
                     }
@@ -576,6 +601,110 @@ public class MatchOperation {
         }
     }
 
+    private boolean actualItemMatches(List actList, int i, Match.Value expListValue) {
+        Match.Value actListValue = new Match.Value(actList.get(i));
+        Match.Type childMatchType;
+        switch (type) {
+            case CONTAINS_DEEP:
+                childMatchType = actListValue.isMapOrListOrXml() ? Match.Type.CONTAINS_DEEP : Match.Type.EQUALS;
+                break;
+            case CONTAINS_ANY_DEEP:
+                childMatchType = actListValue.isMapOrListOrXml() ? Match.Type.CONTAINS_ANY : Match.Type.EQUALS;
+                break;
+            default:
+                childMatchType = Match.Type.EQUALS;
+        }
+        MatchOperation mo = new MatchOperation(context.descend(i), childMatchType, actListValue, expListValue);
+        mo.execute();
+        return mo.pass;
+    }
+
+    // below this size (actual x expected) a nested scan is cheaper than hashing
+    private static final int INDEX_THRESHOLD = 64;
+
+    private static class ListIndex {
+
+        final Set<String> keys;
+        final List<Integer> others = new ArrayList(); // items that cannot be hashed, e.g. xml
+
+        ListIndex(List list) {
+            int count = list.size();
+            keys = new HashSet(count);
+            for (int i = 0; i < count; i++) {
+                String key = toKey(list.get(i), false);
+                if (key == null) {
+                    others.add(i);
+                } else {
+                    keys.add(key);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * structural key such that two values have the same key only if they
+     * would pass a match EQUALS, maps are sorted by key and numbers use the
+     * same decimal comparison as {@link #actualEqualsExpected()}
+     *
+     * @param o the value
+     * @param literal if true, strings starting with '#' are treated as fuzzy
+     * @return null if the value (or any nested value) cannot be keyed
+     */
+    static String toKey(Object o, boolean literal) {
+        StringBuilder sb = new StringBuilder();
+        return appendKey(sb, o, literal) ? sb.toString() : null;
+    }
+
+    private static boolean appendKey(StringBuilder sb, Object o, boolean literal) {
+        if (o == null) {
+            sb.append('n');
+        } else if (o instanceof String) {
+            String s = (String) o;
+            if (literal && s.startsWith("#")) {
+                return false;
+            }
+            sb.append('s').append(s.length()).append(':').append(s);
+        } else if (o instanceof Boolean) {
+            sb.append((Boolean) o ? 't' : 'f');
+        } else if (o instanceof Number) {
+            BigDecimal bd;
+            if (o instanceof BigDecimal) {
+                bd = (BigDecimal) o;
+            } else {
+                double d = ((Number) o).doubleValue();
+                if (Double.isNaN(d) || Double.isInfinite(d)) {
+                    return false;
+                }
+                bd = BigDecimal.valueOf(d);
+            }
+            sb.append('d').append(bd.stripTrailingZeros().toPlainString()).append(';');
+        } else if (o instanceof List) {
+            sb.append('[');
+            for (Object item : (List) o) {
+                if (!appendKey(sb, item, literal)) {
+                    return false;
+                }
+            }
+            sb.append(']');
+        } else if (o instanceof Map) {
+            Map<String, Object> map = (Map) o;
+            List<String> names = new ArrayList(map.keySet());
+            Collections.sort(names);
+            sb.append('{');
+            for (String name : names) {
+                sb.append(name.length()).append(':').append(name);
+                if (!appendKey(sb, map.get(name), literal)) {
+                    return false;
+                }
+            }
+            sb.append('}');
+        } else { // xml, bytes and other java objects
+            return false;
+        }
+        return true;
+    }
+
     private static BigDecimal toBigDecimal(Object o) {
         if (o instanceof BigDecimal) {
             return (BigDecimal) o;
@@ -598,10 +727,55 @@ public class MatchOperation {
             return false;
         }
         failReason = failReason == null ? reason : reason + " | " + failReason;
-        context.root.failures.add(this);
+        context.root.addFailure(this);
         return false;
     }
 
+    // the methods below are called only on the root operation
+    //
+    // the limit applies to the failures of the innermost open speculation, so
+    // that mis-matches which may yet be discarded never evict earlier ones
+    private void addFailure(MatchOperation mo) {
+        failures.add(mo);
+        evictFailures(speculations.peek());
+    }
+
+    private void evictFailures(int[] speculation) {
+        int start = speculation == null ? 0 : speculation[0];
+        while (failureLimit > 0 && failures.size() - start > failureLimit) {
+            // the most recent are kept, since the path to the root fails last
+            failures.remove(start);
+            if (speculation == null) {
+                failuresDropped++;
+            } else {
+                speculation[1]++;
+            }
+        }
+    }
+
+    private void failureMark() {
+        speculations.push(new int[]{failures.size(), 0});
+    }
+
+    private void discardFailures() {
+        int[] speculation = speculations.pop();
+        while (failures.size() > speculation[0]) {
+            failures.remove(failures.size() - 1);
+        }
+    }
+
+    // the failures now belong to the enclosing speculation (or are final)
+    private void keepFailures() {
+        int[] speculation = speculations.pop();
+        int[] parent = speculations.peek();
+        if (parent == null) {
+            failuresDropped += speculation[1];
+        } else {
+            parent[1] += speculation[1];
+        }
+        evictFailures(parent);
+    }
+
     String getFailureReasons() {
         return collectFailureReasons(this);
     }
@@ -645,6 +819,9 @@ public class MatchOperation {
                 sb.append('\n');
             }
         }
+        if (root.failuresDropped > 0) {
+            sb.append("(").append(root.failuresDropped).append(" more failure(s) not shown, see configure matchFailureLimit)\n");
+        }
         return sb.toString();
     }
 
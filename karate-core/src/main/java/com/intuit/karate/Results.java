@@ -29,11 +29,9 @@ import com.intuit.karate.core.TagResults;
 import com.intuit.karate.core.TimelineResults;
 import com.intuit.karate.report.ReportUtils;
 import java.io.File;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 /**
@@ -50,47 +48,27 @@ public class Results {
     private final int scenariosFailed;
     private final double timeTakenMillis;
     private final long endTime;
-    private final List<String> errors = new ArrayList();
-    private final List<Map<String, Object>> featureSummary = new ArrayList();
+    private final List<String> errors;
+    private final List<Map<String, Object>> featureSummary;
 
     public static Results of(Suite suite) {
-        return new Results(suite);
+        return new Results(suite, suite.getResultsAggregate());
     }
 
-    private Results(Suite suite) {
+    private Results(Suite suite, ResultsAggregate aggregate) {
         this.suite = suite;
         // endTime may not be set for junit
         endTime = suite.endTime == 0 ? System.currentTimeMillis() : suite.endTime;
         featuresSkipped = suite.skippedCount;
-        AtomicInteger fp = new AtomicInteger();
-        AtomicInteger ff = new AtomicInteger();
-        AtomicInteger sp = new AtomicInteger();
-        AtomicInteger sf = new AtomicInteger();
-        AtomicInteger time = new AtomicInteger();
-        TimelineResults timeline = new TimelineResults();
-        TagResults tags = new TagResults();
-        suite.getFeatureResults().forEach(fr -> {
-            if (!fr.isEmpty()) {
-                timeline.addFeatureResult(fr);
-                tags.addFeatureResult(fr);
-                if (fr.isFailed()) {
-                    ff.incrementAndGet();
-                } else {
-                    fp.incrementAndGet();
-                }
-                Long duration = Math.round(fr.getDurationMillis());
-                time.addAndGet(duration.intValue());
-                featureSummary.add(fr.toSummaryJson());
-            }
-            sp.addAndGet(fr.getPassedCount());
-            sf.addAndGet(fr.getFailedCount());
-            errors.addAll(fr.getErrors());
-        });
-        featuresPassed = fp.get();
-        featuresFailed = ff.get();
-        scenariosPassed = sp.get();
-        scenariosFailed = sf.get();
-        timeTakenMillis = time.get();
+        featuresPassed = aggregate.getFeaturesPassed();
+        featuresFailed = aggregate.getFeaturesFailed();
+        scenariosPassed = aggregate.getScenariosPassed();
+        scenariosFailed = aggregate.getScenariosFailed();
+        timeTakenMillis = aggregate.getTimeTakenMillis();
+        errors = aggregate.getErrors();
+        featureSummary = aggregate.getFeatureSummary();
+        TimelineResults timeline = aggregate.getTimeline();
+        TagResults tags = aggregate.getTags();
         saveStatsJson();
         printStats();
         if (suite.outputHtmlReport) {
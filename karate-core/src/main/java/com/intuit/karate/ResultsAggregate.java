@@ -0,0 +1,113 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import com.intuit.karate.core.FeatureResult;
+import com.intuit.karate.core.TagResults;
+import com.intuit.karate.core.TimelineResults;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * counts, timeline, tags and errors - updated as each feature completes so
+ * that the end-of-run summary does not have to read back the karate-json
+ * files, thread-safe
+ *
+ * @author pthomas3
+ */
+public class ResultsAggregate {
+
+    private int featuresPassed;
+    private int featuresFailed;
+    private int scenariosPassed;
+    private int scenariosFailed;
+    private int timeTakenMillis;
+    private final TimelineResults timeline = new TimelineResults();
+    private final TagResults tags = new TagResults();
+    private final List<String> errors = new ArrayList();
+    private final List<Map<String, Object>> featureSummary = new ArrayList();
+
+    public static ResultsAggregate of(Iterable<FeatureResult> results) {
+        ResultsAggregate aggregate = new ResultsAggregate();
+        results.forEach(aggregate::add);
+        return aggregate;
+    }
+
+    public synchronized void add(FeatureResult fr) {
+        if (!fr.isEmpty()) {
+            timeline.addFeatureResult(fr);
+            tags.addFeatureResult(fr);
+            if (fr.isFailed()) {
+                featuresFailed++;
+            } else {
+                featuresPassed++;
+            }
+            Long duration = Math.round(fr.getDurationMillis());
+            timeTakenMillis += duration.intValue();
+            featureSummary.add(fr.toSummaryJson());
+        }
+        scenariosPassed += fr.getPassedCount();
+        scenariosFailed += fr.getFailedCount();
+        errors.addAll(fr.getErrors());
+    }
+
+    public synchronized int getFeaturesPassed() {
+        return featuresPassed;
+    }
+
+    public synchronized int getFeaturesFailed() {
+        return featuresFailed;
+    }
+
+    public synchronized int getScenariosPassed() {
+        return scenariosPassed;
+    }
+
+    public synchronized int getScenariosFailed() {
+        return scenariosFailed;
+    }
+
+    public synchronized int getTimeTakenMillis() {
+        return timeTakenMillis;
+    }
+
+    // the getters below are meant for after the run, when nothing is being added
+    public TimelineResults getTimeline() {
+        return timeline;
+    }
+
+    public TagResults getTags() {
+        return tags;
+    }
+
+    public synchronized List<String> getErrors() {
+        return new ArrayList(errors);
+    }
+
+    public synchronized List<Map<String, Object>> getFeatureSummary() {
+        return new ArrayList(featureSummary);
+    }
+
+}
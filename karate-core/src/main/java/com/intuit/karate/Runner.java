@@ -23,12 +23,15 @@
  */
 package com.intuit.karate;
 
+import com.intuit.karate.core.DataCache;
 import com.intuit.karate.core.Feature;
+import com.intuit.karate.core.FeatureCache;
 import com.intuit.karate.core.FeatureResult;
 import com.intuit.karate.core.FeatureRuntime;
 import com.intuit.karate.core.RuntimeHookFactory;
 import com.intuit.karate.http.HttpClientFactory;
 import com.intuit.karate.job.JobConfig;
+import com.intuit.karate.report.ReportPipeline;
 import com.intuit.karate.report.SuiteReports;
 import com.intuit.karate.resource.ResourceUtils;
 import java.io.File;
@@ -184,10 +187,14 @@ public class Runner {
         boolean outputHtmlReport = true;
         boolean outputJunitXml;
         boolean outputCucumberJson;
+        boolean scheduleByDuration;
+        int reportThreads = ReportPipeline.DEFAULT_THREADS;
         boolean dryRun;
         boolean debugMode;
         Map<String, String> systemProperties;
         Map<String, Object> suiteCache;
+        FeatureCache featureCache;
+        DataCache dataCache;
         SuiteReports suiteReports;
         JobConfig jobConfig;
 
@@ -260,6 +267,12 @@ public class Runner {
             if (hookFactory != null) {
                 hook(hookFactory.create());
             }
+            if (featureCache == null) {
+                featureCache = new FeatureCache();
+            }
+            if (dataCache == null) {
+                dataCache = new DataCache();
+            }
             // features
             if (features == null) {
                 if (paths != null && !paths.isEmpty()) {
@@ -278,7 +291,7 @@ public class Runner {
                     paths = new ArrayList();
                     paths.add(relativeTo);
                 }
-                features = ResourceUtils.findFeatureFiles(workingDir, paths);
+                features = ResourceUtils.findFeatureFiles(workingDir, paths, featureCache);
             }
             if (scenarioName != null) {
                 for (Feature feature : features) {
@@ -498,6 +511,29 @@ public class Runner {
             return (T) this;
         }
         
+        public T featureCache(FeatureCache value) {
+            featureCache = value;
+            return (T) this;
+        }
+
+        // max size is in characters, zero max entries disables caching
+        public T dataCache(int maxEntries, long maxSize) {
+            dataCache = new DataCache(maxEntries, maxSize);
+            return (T) this;
+        }
+
+        // parallel runs only, uses durations saved in the report dir by the previous run
+        public T scheduleByDuration(boolean value) {
+            scheduleByDuration = value;
+            return (T) this;
+        }
+
+        // zero writes reports on the thread that completed the feature
+        public T reportThreads(int value) {
+            reportThreads = value;
+            return (T) this;
+        }
+
         public T suiteReports(SuiteReports value) {
             suiteReports = value;
             return (T) this;
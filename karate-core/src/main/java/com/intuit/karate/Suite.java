@@ -23,9 +23,14 @@
  */
 package com.intuit.karate;
 
+import com.intuit.karate.core.CallLocks;
+import com.intuit.karate.core.DataCache;
+import com.intuit.karate.core.DurationHistory;
 import com.intuit.karate.core.Feature;
+import com.intuit.karate.core.FeatureCache;
 import com.intuit.karate.core.FeatureResult;
 import com.intuit.karate.core.FeatureRuntime;
+import com.intuit.karate.report.ReportPipeline;
 import com.intuit.karate.report.ReportUtils;
 import com.intuit.karate.core.Scenario;
 import com.intuit.karate.core.ScenarioResult;
@@ -33,6 +38,8 @@ import com.intuit.karate.core.ScenarioRuntime;
 import com.intuit.karate.core.SyncExecutorService;
 import com.intuit.karate.core.Tags;
 import com.intuit.karate.http.HttpClientFactory;
+import com.intuit.karate.http.HttpClientPool;
+import com.intuit.karate.driver.DriverPool;
 import com.intuit.karate.job.JobManager;
 import com.intuit.karate.report.SuiteReports;
 import com.intuit.karate.resource.Resource;
@@ -42,13 +49,17 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Stream;
 import org.slf4j.LoggerFactory;
@@ -81,10 +92,12 @@ public class Suite implements Runnable {
     public final Set<File> featureResultFiles;
     public final Collection<RuntimeHook> hooks;
     public final HttpClientFactory clientFactory;
+    public final HttpClientPool clientPool;
     public final Map<String, String> systemProperties;
 
     public final boolean backupReportDir;
     public final SuiteReports suiteReports;
+    public final ReportPipeline reportPipeline;
 
     public final boolean outputHtmlReport;
     public final boolean outputCucumberJson;
@@ -101,8 +114,21 @@ public class Suite implements Runnable {
     public final String karateConfigEnv;
 
     public final Map<String, Object> suiteCache;
+    public final FeatureCache featureCache;
+    public final DataCache dataCache;
+    public final CallLocks callSingleLocks; // shared by all suites with the same cache
+    public final DriverPool driverPool;
+    public final DurationHistory durationHistory;
     private final ReentrantLock progressFileLock;
 
+    // updated as features complete, only re-built from the report files on a retry
+    private volatile ResultsAggregate resultsAggregate = new ResultsAggregate();
+
+    // scenario start-up: js context, variables and karate-config.js
+    private final LongAdder scenarioInitCount = new LongAdder();
+    private final LongAdder scenarioInitNanos = new LongAdder();
+    private final LongAdder jsContextsReused = new LongAdder();
+
     private String read(String name) {
         try {
             Resource resource = ResourceUtils.getResource(workingDir, name);
@@ -132,6 +158,7 @@ public class Suite implements Runnable {
             outputJunitXml = false;
             classLoader = Thread.currentThread().getContextClassLoader();
             clientFactory = HttpClientFactory.DEFAULT;
+            clientPool = null;
             startTime = -1;
             env = rb.env;
             systemProperties = null;
@@ -152,8 +179,13 @@ public class Suite implements Runnable {
             parallel = false;
             scenarioExecutor = null;
             pendingTasks = null;
+            durationHistory = null;
             suiteCache = null;
+            callSingleLocks = new CallLocks();
+            featureCache = new FeatureCache();
+            dataCache = new DataCache();
             suiteReports = null;
+            reportPipeline = new ReportPipeline(0);
             jobManager = null;
             progressFileLock = null;
         } else {
@@ -167,6 +199,7 @@ public class Suite implements Runnable {
             debugMode = rb.debugMode;
             classLoader = rb.classLoader;
             clientFactory = rb.clientFactory;
+            clientPool = new HttpClientPool();
             env = rb.env;
             systemProperties = rb.systemProperties;
             tagSelector = Tags.fromKarateOptionsTags(rb.tags);
@@ -174,8 +207,12 @@ public class Suite implements Runnable {
             features = rb.features;
             featuresFound = features.size();
             futures = new ArrayList(featuresFound);
-            suiteCache = rb.suiteCache;
+            suiteCache = rb.suiteCache; // see CallLocks
+            callSingleLocks = CallLocks.forCache(suiteCache);
+            featureCache = rb.featureCache;
+            dataCache = rb.dataCache;
             suiteReports = rb.suiteReports;
+            reportPipeline = new ReportPipeline(rb.reportThreads);
             featureResultFiles = new HashSet();
             workingDir = rb.workingDir;
             buildDir = rb.buildDir;
@@ -195,15 +232,23 @@ public class Suite implements Runnable {
             threadCount = rb.threadCount;
             timeoutMinutes = rb.timeoutMinutes;
             parallel = threadCount > 1;
-            if (parallel) {
+            if (parallel && rb.scheduleByDuration) {
+                // tasks are ParallelProcessor.Task-s, longest (previous) duration first
+                durationHistory = DurationHistory.load(reportDir);
+                scenarioExecutor = new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue());
+                pendingTasks = Executors.newSingleThreadExecutor();
+            } else if (parallel) {
+                durationHistory = null;
                 scenarioExecutor = Executors.newFixedThreadPool(threadCount);
                 pendingTasks = Executors.newSingleThreadExecutor();
             } else {
+                durationHistory = null;
                 scenarioExecutor = SyncExecutorService.INSTANCE;
                 pendingTasks = SyncExecutorService.INSTANCE;
             }
             progressFileLock = new ReentrantLock();
         }
+        driverPool = new DriverPool(Math.max(1, threadCount));
     }
 
     @Override
@@ -213,8 +258,15 @@ public class Suite implements Runnable {
                 backupReportDirIfExists();
             }
             hooks.forEach(h -> h.beforeSuite(this));
+            List<Feature> ordered = features;
+            Map<String, Object> predicted = null;
+            if (durationHistory != null && !durationHistory.isEmpty()) {
+                ordered = durationHistory.sortLongestFirst(features);
+                predicted = durationHistory.predict(features, threadCount);
+                logger.info("scheduling longest first, predicted: {}", predicted);
+            }
             int index = 0;
-            for (Feature feature : features) {
+            for (Feature feature : ordered) {
                 final int featureNum = ++index;
                 FeatureRuntime fr = FeatureRuntime.of(this, feature);
                 final CompletableFuture future = new CompletableFuture();
@@ -237,46 +289,103 @@ public class Suite implements Runnable {
             } else {
                 CompletableFuture.allOf(futuresArray).join();
             }
+            reportPipeline.flush(); // before results are built from the karate-json files
             endTime = System.currentTimeMillis();
+            if (durationHistory != null) {
+                if (predicted != null) {
+                    logger.info("predicted makespan: {} ms (longest scenario: {} ms), actual: {} ms (longest scenario: {} ms)",
+                            predicted.get("makespanMillis"), predicted.get("longestScenarioMillis"),
+                            endTime - startTime, durationHistory.getLongestScenarioMillis());
+                }
+                durationHistory.save(reportDir);
+            }
         } catch (Throwable t) {
             logger.error("runner failed: " + t);
         } finally {
             scenarioExecutor.shutdownNow();
             pendingTasks.shutdownNow();
+            reportPipeline.shutdown();
+            clientPool.close();
+            if (scenarioInitCount.sum() > 0) {
+                logger.info("scenario init stats: {}", getScenarioInitStats());
+            }
+            if (!reportPipeline.isEmpty()) {
+                logger.info("report timings: {}", reportPipeline.getTimings());
+            }
+            if (!callSingleLocks.isEmpty()) {
+                logger.info("callSingle lock waits: {}", callSingleLocks.getWaitStats());
+            }
+            logger.debug("feature cache - parsed: {}, hits: {}, misses: {}", featureCache.size(), featureCache.getHitCount(), featureCache.getMissCount());
+            logger.debug("data cache - files: {}, hits: {}, misses: {}, evicted: {}", dataCache.size(), dataCache.getHitCount(), dataCache.getMissCount(), dataCache.getEvictionCount());
             if (jobManager != null) {
                 jobManager.server.stop();
             }
+            if (!driverPool.isEmpty()) {
+                driverPool.shutdown();
+                logger.info("driver pool stats: {}", driverPool.getStats());
+            }
             hooks.forEach(h -> h.afterSuite(this));
         }
     }
 
+    public void addScenarioInitTime(long nanos, boolean jsContextReused) {
+        scenarioInitCount.increment();
+        scenarioInitNanos.add(nanos);
+        if (jsContextReused) {
+            jsContextsReused.increment();
+        }
+    }
+
+    public Map<String, Object> getScenarioInitStats() {
+        long count = scenarioInitCount.sum();
+        double totalMillis = scenarioInitNanos.sum() / 1000000d;
+        Map<String, Object> map = new LinkedHashMap();
+        map.put("scenarios", count);
+        map.put("totalMillis", Math.round(totalMillis));
+        map.put("averageMillis", count == 0 ? 0 : Math.round(totalMillis * 100 / count) / 100d);
+        long reused = jsContextsReused.sum();
+        map.put("jsContextsCreated", count - reused);
+        map.put("jsContextsReused", reused);
+        return map;
+    }
+
     public void saveFeatureResults(FeatureResult fr) {
-        File file = ReportUtils.saveKarateJson(reportDir, fr, null);
+        resultsAggregate.add(fr);
+        writeFeatureResults(fr);
+    }
+
+    private void writeFeatureResults(FeatureResult fr) {
+        File file = reportPipeline.time("karate-json", () -> ReportUtils.saveKarateJson(reportDir, fr, null));
         synchronized (featureResultFiles) {
             featureResultFiles.add(file);
         }
         if (outputHtmlReport) {
-            suiteReports.featureReport(this, fr).render();
+            reportPipeline.time("html", () -> suiteReports.featureReport(this, fr).render());
         }
         if (outputCucumberJson) {
-            ReportUtils.saveCucumberJson(reportDir, fr, null);
+            reportPipeline.time("cucumber-json", () -> ReportUtils.saveCucumberJson(reportDir, fr, null));
         }
         if (outputJunitXml) {
-            ReportUtils.saveJunitXml(reportDir, fr, null);
+            reportPipeline.time("junit-xml", () -> ReportUtils.saveJunitXml(reportDir, fr, null));
         }
         fr.printStats();
     }
 
     private void onFeatureDone(FeatureResult fr, int index) {
         if (fr.getScenarioCount() > 0) { // possible that zero scenarios matched tags
-            try { // edge case that reports are not writable     
-                saveFeatureResults(fr);
-                String status = fr.isFailed() ? "fail" : "pass";
-                logger.info("<<{}>> feature {} of {} ({} remaining) {}", status, index, featuresFound, getFeaturesRemaining() - 1, fr.getFeature());
-            } catch (Throwable t) {
-                logger.error("<<error>> unable to write report file(s): {} - {}", fr.getFeature(), t + "");
-                fr.printStats();
+            if (durationHistory != null) {
+                durationHistory.record(fr);
             }
+            reportPipeline.submit(() -> {
+                try { // edge case that reports are not writable     
+                    saveFeatureResults(fr);
+                } catch (Throwable t) {
+                    logger.error("<<error>> unable to write report file(s): {} - {}", fr.getFeature(), t + "");
+                    fr.printStats();
+                }
+            });
+            String status = fr.isFailed() ? "fail" : "pass";
+            logger.info("<<{}>> feature {} of {} ({} remaining) {}", status, index, featuresFound, getFeaturesRemaining() - 1, fr.getFeature());
         } else {
             skippedCount++;
             if (logger.isTraceEnabled()) {
@@ -331,7 +440,8 @@ public class Suite implements Runnable {
             scenarioResults.add(sr);
         }
         fr.sortScenarioResults();
-        saveFeatureResults(fr);
+        writeFeatureResults(fr);
+        resultsAggregate = ResultsAggregate.of(getFeatureResults()::iterator);
         return buildResults();
     }
 
@@ -360,7 +470,12 @@ public class Suite implements Runnable {
         return file;
     }
 
+    public ResultsAggregate getResultsAggregate() {
+        return resultsAggregate;
+    }
+
     public Results buildResults() {
+        reportPipeline.flush();
         return Results.of(this);
     }
 
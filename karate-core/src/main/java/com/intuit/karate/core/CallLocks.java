@@ -0,0 +1,188 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.core;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * one lock per cache key for callSingle() and callonce, so that different
+ * keys are initialized concurrently and threads wait only on the key they
+ * need, also keeps track of how long each key kept other threads waiting
+ *
+ * since there is more than one lock, two threads can deadlock if the features
+ * call each other, e.g. a.feature does callSingle() of b.feature and vice
+ * versa - so before blocking, the chain of lock owners is walked and if it
+ * leads back to the current thread, lock() fails instead of hanging forever
+ *
+ * @author pthomas3
+ */
+public class CallLocks {
+
+    private static final List<Shared> SHARED = new ArrayList(); // guarded by itself
+
+    private final Map<String, KeyLock> locks;
+    private final Map<String, Waits> waits;
+    private final Map<Thread, String> waiting;
+    private final Map<String, Object> cache; // only for callSingle()
+
+    public CallLocks() {
+        this(null, new Shared(null));
+    }
+
+    private CallLocks(Map<String, Object> cache, Shared shared) {
+        this.cache = cache;
+        locks = shared.locks;
+        waits = shared.waits;
+        waiting = shared.waiting;
+    }
+
+    private static class Shared {
+
+        final WeakReference<Map<String, Object>> cache; // does not keep the cache alive
+        final Map<String, KeyLock> locks = new ConcurrentHashMap();
+        final Map<String, Waits> waits = new ConcurrentHashMap();
+        final Map<Thread, String> waiting = new ConcurrentHashMap();
+
+        Shared(Map<String, Object> cache) {
+            this.cache = new WeakReference(cache);
+        }
+
+    }
+
+    /**
+     * every suite that shares a cache has to share the locks, e.g.
+     * karate-gatling creates a suite per call over one global cache - so the
+     * locks are looked up by the identity of the cache, and the cache is only
+     * accessed while holding its own monitor
+     */
+    public static CallLocks forCache(Map<String, Object> cache) {
+        synchronized (SHARED) {
+            SHARED.removeIf(s -> s.cache.get() == null);
+            for (Shared shared : SHARED) {
+                if (shared.cache.get() == cache) {
+                    return new CallLocks(cache, shared);
+                }
+            }
+            Shared shared = new Shared(cache);
+            SHARED.add(shared);
+            return new CallLocks(cache, shared);
+        }
+    }
+
+    public boolean isCached(String key) {
+        synchronized (cache) {
+            return cache.containsKey(key);
+        }
+    }
+
+    public Object getCached(String key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    public void putCached(String key, Object value) {
+        synchronized (cache) {
+            cache.put(key, value);
+        }
+    }
+
+    private static class Waits {
+
+        final LongAdder count = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+
+    }
+
+    private static class KeyLock extends ReentrantLock {
+
+        Thread owner() {
+            return getOwner();
+        }
+
+    }
+
+    public ReentrantLock lock(String key) {
+        KeyLock lock = locks.computeIfAbsent(key, k -> new KeyLock());
+        if (lock.tryLock()) {
+            return lock;
+        }
+        long startTime = System.nanoTime();
+        Thread thread = Thread.currentThread();
+        waiting.put(thread, key); // before the check, so one of two threads in a cycle sees it
+        try {
+            checkCycle(key, thread);
+            lock.lock();
+        } finally {
+            waiting.remove(thread);
+        }
+        Waits w = waits.computeIfAbsent(key, k -> new Waits());
+        w.count.increment();
+        w.nanos.add(System.nanoTime() - startTime);
+        return lock;
+    }
+
+    private void checkCycle(String key, Thread thread) {
+        StringBuilder sb = new StringBuilder(key);
+        String next = key;
+        for (int i = 0; i <= locks.size(); i++) { // a cycle can't be longer than the number of locks
+            KeyLock lock = locks.get(next);
+            Thread owner = lock == null ? null : lock.owner();
+            if (owner == null) {
+                return;
+            }
+            if (owner == thread) {
+                throw new RuntimeException("deadlock, features that call each other are holding these locks: " + sb);
+            }
+            next = waiting.get(owner);
+            if (next == null) {
+                return;
+            }
+            sb.append(" -> ").append(next);
+        }
+    }
+
+    public boolean isEmpty() {
+        return waits.isEmpty();
+    }
+
+    public Map<String, Object> getWaitStats() {
+        Map<String, Object> map = new LinkedHashMap(waits.size());
+        waits.forEach((k, v) -> {
+            Map<String, Object> stats = new LinkedHashMap(2);
+            stats.put("waiters", v.count.sum());
+            stats.put("waitedMillis", v.nanos.sum() / 1000000);
+            map.put(k, stats);
+        });
+        return map;
+    }
+
+}
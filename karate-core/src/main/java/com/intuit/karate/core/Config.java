@@ -24,6 +24,7 @@
 package com.intuit.karate.core;
 
 import com.intuit.karate.FileUtils;
+import com.intuit.karate.Match;
 import com.intuit.karate.StringUtils;
 import com.intuit.karate.driver.DockerTarget;
 import com.intuit.karate.driver.Target;
@@ -53,6 +54,9 @@ public class Config {
     public static final int DEFAULT_RETRY_COUNT = 3;
     public static final int DEFAULT_TIMEOUT = 30000;
     public static final int DEFAULT_HIGHLIGHT_DURATION = 3000;
+    public static final int DEFAULT_POOL_MAX_TOTAL = 200;
+    public static final int DEFAULT_POOL_MAX_PER_ROUTE = 50;
+    public static final int DEFAULT_POOL_IDLE_TIMEOUT = 30000;
 
     private boolean sslEnabled = false;
     private String sslAlgorithm = "TLS";
@@ -72,6 +76,11 @@ public class Config {
     private String proxyPassword;
     private List<String> nonProxyHosts;
     private String localAddress;
+    private boolean httpPoolEnabled = true;
+    private boolean httpPoolKeepAlive = true;
+    private int httpPoolMaxTotal = DEFAULT_POOL_MAX_TOTAL;
+    private int httpPoolMaxPerRoute = DEFAULT_POOL_MAX_PER_ROUTE;
+    private int httpPoolIdleTimeout = DEFAULT_POOL_IDLE_TIMEOUT;
     private int responseDelay;
     private boolean lowerCaseResponseHeaders = false;
     private boolean corsEnabled = false;
@@ -80,6 +89,7 @@ public class Config {
     private boolean printEnabled = true;
     private boolean outlineVariablesAuto = true;
     private boolean abortedStepsShouldPass = false;
+    private int matchFailureLimit = Match.DEFAULT_FAILURE_LIMIT;
     private Target driverTarget;
     private Map<String, Object> driverOptions;
     private Map<String, Object> robotOptions; // TODO make generic plugin model
@@ -230,6 +240,15 @@ public class Config {
             case "abortedStepsShouldPass":
                 abortedStepsShouldPass = value.isTrue();
                 return false;
+            case "matchFailureLimit":
+                if (value.isNull()) {
+                    matchFailureLimit = Match.DEFAULT_FAILURE_LIMIT;
+                } else if (value.isNumber() && value.<Number>getValue().intValue() >= 0) {
+                    matchFailureLimit = value.<Number>getValue().intValue();
+                } else {
+                    throw new RuntimeException("bad matchFailureLimit config, expected a number (0 for no limit): " + value.getAsString());
+                }
+                return false;
             case "callSingleCache":
                 if (value.isMap()) {
                     Map<String, Object> map = value.getValue();
@@ -291,6 +310,18 @@ public class Config {
             case "localAddress":
                 localAddress = value.getAsString();
                 return true;
+            case "httpPool":
+                if (value.isMap()) {
+                    Map<String, Object> map = value.getValue();
+                    httpPoolEnabled = get(map, "enabled", httpPoolEnabled);
+                    httpPoolKeepAlive = get(map, "keepAlive", httpPoolKeepAlive);
+                    httpPoolMaxTotal = get(map, "maxTotal", httpPoolMaxTotal);
+                    httpPoolMaxPerRoute = get(map, "maxPerRoute", httpPoolMaxPerRoute);
+                    httpPoolIdleTimeout = get(map, "idleTimeout", httpPoolIdleTimeout);
+                } else {
+                    httpPoolEnabled = value.isTrue();
+                }
+                return true;
             case "continueOnStepFailure":
                 continueOnStepFailureMethods.clear(); // clears previous configuration - in case someone is trying to chain these and forgets resetting the previous one
 
@@ -343,6 +374,11 @@ public class Config {
         proxyPassword = parent.proxyPassword;
         nonProxyHosts = parent.nonProxyHosts;
         localAddress = parent.localAddress;
+        httpPoolEnabled = parent.httpPoolEnabled;
+        httpPoolKeepAlive = parent.httpPoolKeepAlive;
+        httpPoolMaxTotal = parent.httpPoolMaxTotal;
+        httpPoolMaxPerRoute = parent.httpPoolMaxPerRoute;
+        httpPoolIdleTimeout = parent.httpPoolIdleTimeout;
         responseDelay = parent.responseDelay;
         lowerCaseResponseHeaders = parent.lowerCaseResponseHeaders;
         corsEnabled = parent.corsEnabled;
@@ -358,6 +394,7 @@ public class Config {
         retryCount = parent.retryCount;
         outlineVariablesAuto = parent.outlineVariablesAuto;
         abortedStepsShouldPass = parent.abortedStepsShouldPass;
+        matchFailureLimit = parent.matchFailureLimit;
         logModifier = parent.logModifier;
         callSingleCacheMinutes = parent.callSingleCacheMinutes;
         callSingleCacheDir = parent.callSingleCacheDir;
@@ -446,6 +483,26 @@ public class Config {
         return localAddress;
     }
 
+    public boolean isHttpPoolEnabled() {
+        return httpPoolEnabled;
+    }
+
+    public boolean isHttpPoolKeepAlive() {
+        return httpPoolKeepAlive;
+    }
+
+    public int getHttpPoolMaxTotal() {
+        return httpPoolMaxTotal;
+    }
+
+    public int getHttpPoolMaxPerRoute() {
+        return httpPoolMaxPerRoute;
+    }
+
+    public int getHttpPoolIdleTimeout() {
+        return httpPoolIdleTimeout;
+    }
+
     public Variable getHeaders() {
         return headers;
     }
@@ -546,6 +603,10 @@ public class Config {
         return abortedStepsShouldPass;
     }
 
+    public int getMatchFailureLimit() {
+        return matchFailureLimit;
+    }
+
     public Target getDriverTarget() {
         return driverTarget;
     }
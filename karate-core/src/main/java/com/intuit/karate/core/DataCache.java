@@ -0,0 +1,154 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.core;
+
+import com.intuit.karate.FileUtils;
+import com.intuit.karate.resource.MemoryResource;
+import com.intuit.karate.resource.Resource;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * data files (json, xml, csv, yaml) read during a suite, keyed by resource
+ * uri and last-modified time, and bounded by entry count and total size (in
+ * characters) with the least-recently-used entries evicted first - the parsed
+ * value is shared, so callers have to copy it before handing it out
+ *
+ * @author pthomas3
+ */
+public class DataCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+    public static final long DEFAULT_MAX_SIZE = 16 * 1024 * 1024;
+
+    public final int maxEntries;
+    public final long maxSize;
+
+    private final LinkedHashMap<String, Entry> cache = new LinkedHashMap(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long size;
+
+    public static class Entry {
+
+        public final String text;
+        public final Object value; // null if the text has to be evaluated every time
+        final long lastModified;
+        private final boolean embedded;
+
+        Entry(String text, Object value, long lastModified) {
+            this.text = text;
+            this.value = value;
+            this.lastModified = lastModified;
+            embedded = text.contains("#(");
+        }
+
+        public boolean isEmbedded() {
+            return embedded;
+        }
+
+    }
+
+    public DataCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_SIZE);
+    }
+
+    public DataCache(int maxEntries, long maxSize) {
+        this.maxEntries = maxEntries;
+        this.maxSize = maxSize;
+    }
+
+    public Entry get(Resource resource, Function<String, Object> parser) {
+        long lastModified = FeatureCache.lastModified(resource);
+        if (maxEntries < 1 || resource instanceof MemoryResource) {
+            return read(resource, parser, lastModified);
+        }
+        String key = resource.getUri().toString();
+        synchronized (this) {
+            Entry entry = cache.get(key);
+            if (entry != null && entry.lastModified == lastModified) {
+                hits.increment();
+                return entry;
+            }
+        }
+        misses.increment();
+        Entry entry = read(resource, parser, lastModified); // outside the lock
+        if (entry.text.length() > maxSize) {
+            return entry;
+        }
+        synchronized (this) {
+            Entry previous = cache.put(key, entry);
+            if (previous != null) {
+                size -= previous.text.length();
+            }
+            size += entry.text.length();
+            Iterator<Map.Entry<String, Entry>> iterator = cache.entrySet().iterator();
+            while ((cache.size() > maxEntries || size > maxSize) && iterator.hasNext()) {
+                Entry eldest = iterator.next().getValue();
+                if (eldest == entry) {
+                    continue;
+                }
+                iterator.remove();
+                size -= eldest.text.length();
+                evictions.increment();
+            }
+        }
+        return entry;
+    }
+
+    private static Entry read(Resource resource, Function<String, Object> parser, long lastModified) {
+        String text = FileUtils.toString(resource.getStream());
+        return new Entry(text, parser.apply(text), lastModified);
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+        size = 0;
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.core;
+
+import com.intuit.karate.FileUtils;
+import com.intuit.karate.JsonUtils;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * scenario and feature durations from the previous run (saved in the report
+ * dir), used to start the longest work first so that a long feature found
+ * late does not end up as the tail of a parallel run
+ *
+ * @author pthomas3
+ */
+public class DurationHistory {
+
+    private static final Logger logger = LoggerFactory.getLogger(DurationHistory.class);
+
+    public static final String FILE_NAME = "karate-durations.json";
+
+    private final Map<String, Long> previousFeatures = new LinkedHashMap();
+    private final Map<String, Long> previousScenarios = new LinkedHashMap();
+    private final long averageScenarioMillis;
+
+    private final Map<String, Long> features = new ConcurrentHashMap();
+    private final Map<String, Long> scenarios = new ConcurrentHashMap();
+
+    public static DurationHistory load(String reportDir) {
+        File file = new File(reportDir + File.separator + FILE_NAME);
+        if (!file.exists()) {
+            logger.debug("no duration history found: {}", file);
+            return new DurationHistory(null);
+        }
+        try {
+            Map<String, Object> map = (Map) JsonUtils.fromJson(FileUtils.toString(file));
+            return new DurationHistory(map);
+        } catch (Exception e) {
+            logger.warn("unable to read duration history: {} - {}", file, e.getMessage());
+            return new DurationHistory(null);
+        }
+    }
+
+    private DurationHistory(Map<String, Object> map) {
+        if (map != null) {
+            toLongs((Map) map.get("features"), previousFeatures);
+            toLongs((Map) map.get("scenarios"), previousScenarios);
+        }
+        long total = 0;
+        for (long millis : previousScenarios.values()) {
+            total += millis;
+        }
+        averageScenarioMillis = previousScenarios.isEmpty() ? 0 : total / previousScenarios.size();
+    }
+
+    private static void toLongs(Map<String, Object> map, Map<String, Long> target) {
+        if (map != null) {
+            map.forEach((k, v) -> {
+                if (v instanceof Number) {
+                    target.put(k, ((Number) v).longValue());
+                }
+            });
+        }
+    }
+
+    public boolean isEmpty() {
+        return previousScenarios.isEmpty();
+    }
+
+    // never seen before, assume an average scenario
+    public long getScenarioMillis(Scenario scenario) {
+        Long millis = previousScenarios.get(scenario.getUniqueId());
+        return millis == null ? averageScenarioMillis : millis;
+    }
+
+    public long getFeatureMillis(Feature feature) {
+        Long millis = previousFeatures.get(feature.getPackageQualifiedName());
+        return millis == null ? averageScenarioMillis : millis;
+    }
+
+    public List<Feature> sortLongestFirst(List<Feature> list) {
+        List<Feature> sorted = new ArrayList(list);
+        // stable, so discovery order is kept for equal (or unknown) durations
+        sorted.sort(Comparator.comparingLong(this::getFeatureMillis).reversed());
+        return sorted;
+    }
+
+    // features run in parallel, but a feature can not finish earlier than its longest scenario
+    public Map<String, Object> predict(List<Feature> list, int threadCount) {
+        long total = 0;
+        long longest = 0;
+        for (Feature feature : list) {
+            total += getFeatureMillis(feature);
+            String prefix = feature.getPackageQualifiedName() + "_";
+            for (Map.Entry<String, Long> entry : previousScenarios.entrySet()) {
+                if (entry.getKey().startsWith(prefix)) {
+                    longest = Math.max(longest, entry.getValue());
+                }
+            }
+        }
+        Map<String, Object> map = new LinkedHashMap(3);
+        map.put("totalMillis", total);
+        map.put("longestScenarioMillis", longest);
+        map.put("makespanMillis", Math.max(total / Math.max(threadCount, 1), longest));
+        return map;
+    }
+
+    public void record(FeatureResult fr) {
+        long total = 0;
+        for (ScenarioResult sr : fr.getScenarioResults()) {
+            long millis = Math.round(sr.getDurationMillis());
+            scenarios.put(sr.getScenario().getUniqueId(), millis);
+            total += millis;
+        }
+        features.put(fr.getFeature().getPackageQualifiedName(), total);
+    }
+
+    public long getLongestScenarioMillis() {
+        long longest = 0;
+        for (long millis : scenarios.values()) {
+            longest = Math.max(longest, millis);
+        }
+        return longest;
+    }
+
+    // entries not seen in this run (e.g. filtered by tags) are carried forward
+    public void save(String reportDir) {
+        Map<String, Long> featuresMerged = new LinkedHashMap(previousFeatures);
+        featuresMerged.putAll(features);
+        Map<String, Long> scenariosMerged = new LinkedHashMap(previousScenarios);
+        scenariosMerged.putAll(scenarios);
+        Map<String, Object> map = new LinkedHashMap(2);
+        map.put("features", featuresMerged);
+        map.put("scenarios", scenariosMerged);
+        File file = new File(reportDir + File.separator + FILE_NAME);
+        FileUtils.writeToFile(file, JsonUtils.toJson(map));
+    }
+
+}
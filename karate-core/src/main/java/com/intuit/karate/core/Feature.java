@@ -31,6 +31,7 @@ import com.intuit.karate.resource.Resource;
 import com.intuit.karate.resource.ResourceUtils;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -72,6 +73,18 @@ public class Feature {
         this.resource = resource;
     }
 
+    // shares the parsed content, but not the call tag / name / line
+    public Feature copy() {
+        Feature feature = new Feature(resource);
+        feature.line = line;
+        feature.tags = tags;
+        feature.name = name;
+        feature.description = description;
+        feature.background = background;
+        feature.sections = sections;
+        return feature;
+    }
+
     public Resource getResource() {
         return resource;
     }
@@ -138,7 +151,11 @@ public class Feature {
             return section.getScenario();
         }
         ScenarioOutline outline = section.getScenarioOutline();
-        return outline.getScenarios().get(exampleIndex);
+        Iterator<Scenario> scenarios = outline.iterator(null);
+        for (int i = 0; i < exampleIndex; i++) {
+            scenarios.next();
+        }
+        return scenarios.next();
     }
 
     public Step getStep(int sectionIndex, int exampleIndex, int stepIndex) {
@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.core;
+
+import com.intuit.karate.resource.MemoryResource;
+import com.intuit.karate.resource.Resource;
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * parsed features keyed by resource uri and last-modified time, so that a
+ * feature called (or read) many times is parsed only once, callers always get
+ * a copy with their own call tag / name / line on top of the shared parse
+ *
+ * @author pthomas3
+ */
+public class FeatureCache {
+
+    private final Map<String, Entry> cache = new ConcurrentHashMap();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private static class Entry {
+
+        final long lastModified;
+        final Feature feature;
+
+        Entry(long lastModified, Feature feature) {
+            this.lastModified = lastModified;
+            this.feature = feature;
+        }
+
+    }
+
+    public static Feature read(FeatureCache cache, Resource resource) {
+        return cache == null ? Feature.read(resource) : cache.get(resource);
+    }
+
+    public Feature get(Resource resource) {
+        if (resource instanceof MemoryResource) { // no stable identity
+            return Feature.read(resource);
+        }
+        String key = resource.getUri().toString();
+        long lastModified = lastModified(resource);
+        Entry entry = cache.compute(key, (k, v) -> {
+            if (v != null && v.lastModified == lastModified) {
+                hits.increment();
+                return v;
+            }
+            misses.increment();
+            return new Entry(lastModified, Feature.read(resource));
+        });
+        return entry.feature.copy();
+    }
+
+    static long lastModified(Resource resource) {
+        if (resource.isFile()) {
+            File file = resource.getFile();
+            return file == null ? 0 : file.lastModified();
+        }
+        return 0; // within a jar, will not change
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+}
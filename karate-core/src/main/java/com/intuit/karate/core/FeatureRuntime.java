@@ -29,10 +29,10 @@ import com.intuit.karate.Suite;
 import com.intuit.karate.resource.MemoryResource;
 import com.intuit.karate.resource.Resource;
 import java.io.File;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -54,7 +54,8 @@ public class FeatureRuntime implements Runnable {
     
     private final ParallelProcessor<ScenarioRuntime> processor;
     
-    public final Map<String, ScenarioCall.Result> FEATURE_CACHE = new HashMap();
+    public final Map<String, ScenarioCall.Result> FEATURE_CACHE = new ConcurrentHashMap();
+    public final CallLocks callOnceLocks = new CallLocks();
     
     private Runnable next;
     
@@ -121,7 +122,17 @@ public class FeatureRuntime implements Runnable {
                 public void process(ScenarioRuntime sr) {
                     processScenario(sr);
                 }
+
+                @Override
+                public long priority(ScenarioRuntime sr) {
+                    return suite.durationHistory == null ? 0 : suite.durationHistory.getScenarioMillis(sr.scenario);
+                }
                 
+                @Override
+                public CompletableFuture offload(ScenarioRuntime sr) {
+                    return suite.jobManager == null ? null : offloadScenario(sr);
+                }
+
                 @Override
                 public void onComplete() {
                     afterFeature();
@@ -167,11 +178,15 @@ public class FeatureRuntime implements Runnable {
         }
     }
     
-    private ScenarioRuntime lastExecutedScenario;
+    private volatile ScenarioRuntime lastExecutedScenario;
     
     private void processScenario(ScenarioRuntime sr) {
         if (beforeHook()) {
+            ScenarioRuntime previous = lastExecutedScenario;
             lastExecutedScenario = sr;
+            if (processor == null) { // previous has completed
+                releaseJsContext(previous);
+            }
             if (suite.jobManager != null) {
                 CompletableFuture future = suite.jobManager.addChunk(sr);
                 logger.info("waiting for job executor to process: {}", sr);
@@ -183,12 +198,42 @@ public class FeatureRuntime implements Runnable {
             synchronized (result) {
                 result.addResult(sr.result);
             }
+            if (processor != null && lastExecutedScenario != sr) { // not needed for afterFeature()
+                releaseJsContext(sr);
+            }
+        }
+    }
+
+    // parallel mode, the chunk is queued for a job executor without blocking a
+    // worker thread, so that executors can lease more than one at a time
+    private CompletableFuture offloadScenario(ScenarioRuntime sr) {
+        if (!beforeHook()) {
+            return CompletableFuture.completedFuture(Boolean.FALSE);
+        }
+        lastExecutedScenario = sr;
+        logger.info("waiting for job executor to process: {}", sr);
+        return suite.jobManager.addChunk(sr).thenRun(() -> {
+            logger.info("job executor completed processing: {}", sr);
+            synchronized (result) {
+                result.addResult(sr.result);
+            }
+        });
+    }
+
+    // the after-feature hook uses the last scenario, and values from called
+    // features can be referenced by the caller, so the rest can be re-used
+    private void releaseJsContext(ScenarioRuntime sr) {
+        if (sr != null && caller.isNone() && !suite.debugMode && suite.jobManager == null) {
+            sr.engine.releaseJsContext();
         }
     }
 
     // extracted for junit5
     public void afterFeature() {
         result.sortScenarioResults();
+        if (!callOnceLocks.isEmpty()) {
+            logger.info("callonce lock waits: {}", callOnceLocks.getWaitStats());
+        }
         if (lastExecutedScenario != null) {
             lastExecutedScenario.engine.invokeAfterHookIfConfigured(true);
             result.setVariables(lastExecutedScenario.engine.getAllVariablesAsMap());
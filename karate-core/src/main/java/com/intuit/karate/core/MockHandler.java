@@ -25,20 +25,28 @@ package com.intuit.karate.core;
 
 import com.intuit.karate.ScenarioActions;
 import com.intuit.karate.Suite;
-import com.intuit.karate.StringUtils;
 import com.intuit.karate.Json;
 import com.intuit.karate.KarateException;
+import com.intuit.karate.graal.JsFunction;
 import com.intuit.karate.graal.JsValue;
 import com.intuit.karate.http.HttpUtils;
 import com.intuit.karate.http.Request;
 import com.intuit.karate.http.ResourceType;
 import com.intuit.karate.http.Response;
 import com.intuit.karate.http.ServerHandler;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import org.graalvm.polyglot.Value;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -65,34 +73,80 @@ public class MockHandler implements ServerHandler {
     private static final String PARAM_EXISTS = "paramExists";
     private static final String PATH_PARAMS = "pathParams";
     private static final String BODY_PATH = "bodyPath";
+    private static final String WITH_LOCK = "withLock";
 
     private final Feature feature;
     private final ScenarioRuntime runtime; // holds global config and vars
     private final Map<String, Variable> globals;
+    private final Set<String> withFunctions = ConcurrentHashMap.newKeySet(); // globals that have to be re-attached
+    private final Map<String, Boolean> changedInPlace = new ConcurrentHashMap(); // by any step in the feature
     private final boolean corsEnabled;
-    
+    private final boolean concurrent;
+    private final Map<String, ReentrantLock> locks = new ConcurrentHashMap();
+    private final ThreadLocal<Worker> workers;
+    private final MockRoutes routes;
+
+    // metrics
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder matchNanos = new LongAdder();
+
     protected static final ThreadLocal<Request> LOCAL_REQUEST = new ThreadLocal<Request>();
 
+    // in concurrent mode, each thread has its own runtime and logger, so
+    // that call results and embeds are not collected by threads in parallel
+    private static class Worker {
+
+        final ScenarioRuntime runtime;
+        final com.intuit.karate.Logger logger = new com.intuit.karate.Logger();
+        Map<String, Variable> snapshot; // of the request in progress
+
+        Worker(ScenarioRuntime runtime) {
+            this.runtime = runtime;
+        }
+
+    }
+
     public MockHandler(Feature feature) {
         this(feature, null);
     }
 
     public MockHandler(Feature feature, Map<String, Object> args) {
+        this(feature, args, false);
+    }
+
+    /**
+     * in concurrent mode requests are not serialized. global variables are
+     * copy-on-write: each request sees the values published when it started,
+     * and variables (re)assigned by the matched scenario are published when it
+     * ends (last writer wins per variable). JSON is shared read-only, except
+     * when a step changes it in-place (e.g. set, remove, cats.push()) or it
+     * contains functions, then the request works on a copy, and that change is
+     * not published - instead do this within withLock('cats', fn) which makes a
+     * copy of the latest 'cats', calls fn and then publishes 'cats' - all while
+     * holding a lock on that name. js files that change globals in-place also
+     * have to use withLock()
+     */
+    public MockHandler(Feature feature, Map<String, Object> args, boolean concurrent) {
         this.feature = feature;
+        this.concurrent = concurrent;
         FeatureRuntime featureRuntime = FeatureRuntime.of(Suite.forTempUse(), feature, args);
         FeatureSection section = new FeatureSection();
         section.setIndex(-1); // TODO util for creating dummy scenario
         Scenario dummy = new Scenario(feature, section, -1);
         section.setScenario(dummy);
         runtime = new ScenarioRuntime(featureRuntime, dummy);
-        runtime.engine.setVariable(PATH_MATCHES, (Function<String, Boolean>) this::pathMatches);
-        runtime.engine.setVariable(PARAM_EXISTS, (Function<String, Boolean>) this::paramExists);
+        workers = ThreadLocal.withInitial(() -> new Worker(new ScenarioRuntime(featureRuntime, dummy)));
+        Map<String, Function<String, Boolean>> predicates = new HashMap(4);
+        predicates.put(PATH_MATCHES, this::pathMatches);
+        predicates.put(PARAM_EXISTS, this::paramExists);
+        predicates.put(METHOD_IS, this::methodIs);
+        predicates.put(TYPE_CONTAINS, this::typeContains);
+        predicates.forEach((k, v) -> runtime.engine.setVariable(k, v));
         runtime.engine.setVariable(PARAM_VALUE, (Function<String, String>) this::paramValue);
-        runtime.engine.setVariable(METHOD_IS, (Function<String, Boolean>) this::methodIs);
-        runtime.engine.setVariable(TYPE_CONTAINS, (Function<String, Boolean>) this::typeContains);
         runtime.engine.setVariable(ACCEPT_CONTAINS, (Function<String, Boolean>) this::acceptContains);
         runtime.engine.setVariable(HEADER_CONTAINS, (BiFunction<String, String, Boolean>) this::headerContains);
         runtime.engine.setVariable(BODY_PATH, (Function<String, Object>) this::bodyPath);
+        runtime.engine.setVariable(WITH_LOCK, (BiFunction<String, Function, Object>) this::withLock);
         runtime.engine.init();        
         if (feature.isBackgroundPresent()) {
             // if we are within a scenario already e.g. karate.start(), preserve context
@@ -112,15 +166,46 @@ public class MockHandler implements ServerHandler {
             }
         }
         corsEnabled = runtime.engine.getConfig().isCorsEnabled();
-        globals = runtime.engine.detachVariables();
-        runtime.logger.info("mock server initialized: {}", feature);
+        Map<String, Variable> detached = runtime.engine.detachVariables();
+        globals = concurrent ? new ConcurrentHashMap(detached) : detached;
+        if (concurrent) {
+            detached.forEach(this::putGlobal);
+        }
+        List<String> staticNames = new ArrayList(predicates.size());
+        predicates.forEach((k, v) -> {
+            Variable var = globals.get(k);
+            if (var != null && var.getValue() == v) { // not re-defined in the background
+                staticNames.add(k);
+            }
+        });
+        routes = new MockRoutes(feature.getSections(), staticNames);
+        for (FeatureSection fs : feature.getSections()) {
+            if (fs.isOutline()) {
+                runtime.logger.warn("skipping scenario outline - {}:{}", feature, fs.getScenarioOutline().getLine());
+                break;
+            }
+        }
+        runtime.logger.info("mock server initialized: {}{}", feature, concurrent ? " (concurrent)" : "");
     }
 
     private static final Result PASSED = Result.passed(0);
     private static final String ALLOWED_METHODS = "GET, HEAD, POST, PUT, DELETE, PATCH";
 
+    public boolean isConcurrent() {
+        return concurrent;
+    }
+
     @Override
-    public synchronized Response handle(Request req) { // note the [synchronized]
+    public Response handle(Request req) {
+        if (concurrent) {
+            return handleRequest(req);
+        }
+        synchronized (this) {
+            return handleRequest(req);
+        }
+    }
+
+    private Response handleRequest(Request req) {
         if (corsEnabled && "OPTIONS".equals(req.getMethod())) {
             Response response = new Response(200);
             response.setHeader("Allow", ALLOWED_METHODS);
@@ -136,9 +221,39 @@ public class MockHandler implements ServerHandler {
         Thread.currentThread().setContextClassLoader(runtime.featureRuntime.suite.classLoader);
         LOCAL_REQUEST.set(req);
         req.processBody();
-        ScenarioEngine engine = new ScenarioEngine(runtime, new HashMap(globals));
+        Map<String, Variable> snapshot;
+        ScenarioEngine engine;
+        if (concurrent) {
+            Worker worker = workers.get();
+            // attaching re-writes nested functions in place, so never on the shared values
+            snapshot = new HashMap(globals.size());
+            for (Map.Entry<String, Variable> entry : globals.entrySet()) {
+                String name = entry.getKey();
+                Variable var = entry.getValue();
+                if (var.isXml() || var.isMapOrList() && (withFunctions.contains(name) || isChangedInPlace(name))) {
+                    var = var.copy(true);
+                }
+                snapshot.put(name, var);
+            }
+            worker.snapshot = snapshot;
+            Config config = new Config(runtime.engine.getConfig());
+            engine = new ScenarioEngine(config, worker.runtime, new HashMap(snapshot), worker.logger);
+        } else {
+            snapshot = new HashMap(globals);
+            engine = new ScenarioEngine(runtime, snapshot);
+        }
         ScenarioEngine.set(engine);
         engine.init();
+        try {
+            return handleRequest(req, engine, snapshot);
+        } finally {
+            // globals have been detached, so the js context can be re-used
+            engine.releaseJsContext();
+        }
+    }
+
+    private Response handleRequest(Request req, ScenarioEngine engine, Map<String, Variable> snapshot) {
+        requestCount.increment();
         engine.setVariable(ScenarioEngine.REQUEST_URL_BASE, req.getUrlBase());
         engine.setVariable(ScenarioEngine.REQUEST_URI, req.getPath());
         engine.setVariable(ScenarioEngine.REQUEST_METHOD, req.getMethod());
@@ -150,13 +265,12 @@ public class MockHandler implements ServerHandler {
         if (parts != null) {
             engine.setHiddenVariable(REQUEST_PARTS, parts); // TODO add to docs
         }
-        for (FeatureSection fs : feature.getSections()) {
-            if (fs.isOutline()) {
-                runtime.logger.warn("skipping scenario outline - {}:{}", feature, fs.getScenarioOutline().getLine());
-                break;
-            }
-            Scenario scenario = fs.getScenario();
-            if (isMatchingScenario(scenario, engine)) {
+        long startTime = System.nanoTime();
+        for (MockRoutes.Route route : routes.candidates(req)) {
+            if (isMatchingScenario(route, req, engine)) {
+                route.hits.increment();
+                matchNanos.add(System.nanoTime() - startTime);
+                Scenario scenario = route.scenario;
                 Map<String, Object> configureHeaders;
                 Variable response, responseStatus, responseHeaders, responseDelay;
                 ScenarioActions actions = new ScenarioActions(engine);
@@ -180,7 +294,7 @@ public class MockHandler implements ServerHandler {
                 responseStatus = engine.vars.remove(ScenarioEngine.RESPONSE_STATUS);
                 responseHeaders = engine.vars.remove(ScenarioEngine.RESPONSE_HEADERS);
                 responseDelay = engine.vars.remove(RESPONSE_DELAY);
-                globals.putAll(engine.detachVariables());
+                publishGlobals(snapshot, engine.detachVariables());
                 Response res = new Response(200);
                 if (result.isFailed()) {
                     response = new Variable(result.getError().getMessage());
@@ -212,31 +326,172 @@ public class MockHandler implements ServerHandler {
                 return res;
             }
         }
+        matchNanos.add(System.nanoTime() - startTime);
         runtime.logger.warn("no scenarios matched, returning 404: {}", req);
         return new Response(404);
     }
 
-    private boolean isMatchingScenario(Scenario scenario, ScenarioEngine engine) {
-        String expression = StringUtils.trimToNull(scenario.getName() + scenario.getDescription());
-        if (expression == null) {
+    private void publishGlobals(Map<String, Variable> snapshot, Map<String, Variable> detached) {
+        if (!concurrent) {
+            globals.putAll(detached);
+            return;
+        }
+        detached.forEach((k, v) -> {
+            if (isModified(snapshot.get(k), v)) {
+                putGlobal(k, v);
+            }
+        });
+    }
+
+    private void putGlobal(String name, Variable var) {
+        // flag first, so that a request never sees the new value without it
+        boolean functions = var.isMapOrList() && containsFunction(var.getValue());
+        if (functions) {
+            withFunctions.add(name);
+        }
+        globals.put(name, var);
+        if (!functions) {
+            withFunctions.remove(name);
+        }
+    }
+
+    private static boolean containsFunction(Object o) {
+        if (o instanceof JsFunction || o instanceof Value) {
+            return true;
+        } else if (o instanceof List) {
+            for (Object item : (List) o) {
+                if (containsFunction(item)) {
+                    return true;
+                }
+            }
+        } else if (o instanceof Map) {
+            for (Object item : ((Map) o).values()) {
+                if (containsFunction(item)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    boolean isChangedInPlace(String name) {
+        return changedInPlace.computeIfAbsent(name, k -> {
+            String n = Pattern.quote(k);
+            Pattern pattern = Pattern.compile("^(set|remove|replace)\\s+" + n + "\\b"
+                    + "|(?<![\\w.])" + n + "(\\.\\w+|\\[[^\\]]*\\])+\\s*=(?!=)"
+                    + "|(?<![\\w.])" + n + "(\\.\\w+|\\[[^\\]]*\\])*\\.(push|pop|shift|unshift|splice|sort|reverse|put|add|remove|clear)\\("
+                    + "|delete\\s+" + n + "\\b"
+                    + "|karate\\.(set|remove)\\(\\s*['\"]" + n + "\\b");
+            List<Step> steps = new ArrayList();
+            if (feature.isBackgroundPresent()) {
+                steps.addAll(feature.getBackground().getSteps());
+            }
+            for (FeatureSection fs : feature.getSections()) {
+                if (!fs.isOutline()) {
+                    steps.addAll(fs.getScenario().getSteps());
+                }
+            }
+            for (Step step : steps) {
+                if (pattern.matcher(step.getText()).find()) {
+                    return true;
+                }
+                String docString = step.getDocString();
+                if (docString != null && pattern.matcher(docString).find()) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    private static boolean isModified(Variable before, Variable after) {
+        if (before == null) {
+            return true;
+        }
+        if (before == after) {
+            return false;
+        }
+        if (before.isJsFunctionWrapper() && after.isJsFunctionWrapper()) { // detached functions are always new instances
+            JsFunction bf = before.getValue();
+            JsFunction af = after.getValue();
+            return !bf.source.toString().equals(af.source.toString());
+        }
+        return true;
+    }
+
+    public Object withLock(String name, Function fun) {
+        ReentrantLock lock = locks.computeIfAbsent(name, k -> new ReentrantLock());
+        lock.lock();
+        try {
+            if (!concurrent) {
+                return Value.asValue(fun).execute(name);
+            }
+            ScenarioEngine engine = ScenarioEngine.get();
+            Variable latest = globals.get(name);
+            if (latest != null) {
+                Variable copy = latest.copy(true);
+                engine.recurseAndAttach(copy.getValue());
+                engine.setVariable(name, copy);
+            }
+            Value result = Value.asValue(fun).execute(name);
+            Variable after = engine.vars.get(name);
+            if (after != null) {
+                engine.recurseAndDetach(after.getValue());
+                putGlobal(name, after);
+                workers.get().snapshot.put(name, after); // so that it is not published again
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isMatchingScenario(MockRoutes.Route route, Request req, ScenarioEngine engine) {
+        Scenario scenario = route.scenario;
+        if (route.expression == null) {
             engine.logger.debug("default scenario matched at line: {}", scenario.getLine());
             return true;
         }
+        long startTime = System.nanoTime();
         try {
-            Variable v = engine.evalJs(expression);
+            if (route.path != null) { // already matched by the route index
+                engine.setVariable(PATH_PARAMS, HttpUtils.parseUriPattern(route.path, req.getPath()));
+            }
+            if (route.residual == null) {
+                engine.logger.debug("scenario matched at line {}: {}", scenario.getLine(), route.expression);
+                return true;
+            }
+            route.jsEvals.increment();
+            Variable v = engine.evalJs(route.residual);
             if (v.isTrue()) {
-                engine.logger.debug("scenario matched at line {}: {}", scenario.getLine(), expression);
+                engine.logger.debug("scenario matched at line {}: {}", scenario.getLine(), route.expression);
                 return true;
             } else {
-                engine.logger.trace("scenario skipped at line {}: {}", scenario.getLine(), expression);
+                engine.logger.trace("scenario skipped at line {}: {}", scenario.getLine(), route.expression);
                 return false;
             }
         } catch (Exception e) {
-            engine.logger.warn("scenario match evaluation failed at line {}: {} - {}", scenario.getLine(), expression, e + "");
+            engine.logger.warn("scenario match evaluation failed at line {}: {} - {}", scenario.getLine(), route.expression, e + "");
             return false;
+        } finally {
+            route.evals.increment();
+            route.nanos.add(System.nanoTime() - startTime);
         }
     }
 
+    /**
+     * @return the number of requests, time spent selecting a scenario, and per
+     * scenario (route) the hits, match evaluations and how many needed js
+     */
+    public Map<String, Object> getStats() {
+        long count = requestCount.sum();
+        Map<String, Object> map = new LinkedHashMap();
+        map.put("requests", count);
+        map.put("avgMatchMillis", count == 0 ? 0 : matchNanos.sum() / count / 1000000.0);
+        map.put("routes", routes.getStats());
+        return map;
+    }
+
     public boolean pathMatches(String pattern) {
         String uri = LOCAL_REQUEST.get().getPath();
         Map<String, String> pathParams = HttpUtils.parseUriPattern(pattern, uri);
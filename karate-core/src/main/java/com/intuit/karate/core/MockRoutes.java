@@ -0,0 +1,345 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.core;
+
+import com.intuit.karate.StringUtils;
+import com.intuit.karate.http.Request;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * the mock scenarios in order, with the common (literal) predicates lifted
+ * out of the scenario expressions into a path-segment trie per http method,
+ * so that a request only evaluates js for the scenarios that can still match
+ * - and first-match-wins is preserved because candidates are tried in order
+ *
+ * @author pthomas3
+ */
+class MockRoutes {
+
+    private static final String ANY = "";
+
+    private static final Pattern PREDICATE
+            = Pattern.compile("^(pathMatches|methodIs|paramExists|typeContains)\\(\\s*(['\"])([^'\"\\\\]*)\\2\\s*\\)$");
+
+    static class Route {
+
+        final Scenario scenario;
+        final int index;
+        final String expression; // null for the default (catch-all) scenario
+        String method;
+        String path;
+        List<String> params;
+        List<String> types;
+        String residual; // what is left to evaluate in js
+
+        // metrics
+        final LongAdder hits = new LongAdder();
+        final LongAdder evals = new LongAdder();
+        final LongAdder jsEvals = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+
+        Route(Scenario scenario, int index, String expression) {
+            this.scenario = scenario;
+            this.index = index;
+            this.expression = expression;
+        }
+
+        boolean matches(Request request) {
+            if (params != null) {
+                Map<String, List<String>> map = request.getParams();
+                for (String param : params) {
+                    if (map == null || !map.containsKey(param)) {
+                        return false;
+                    }
+                }
+            }
+            if (types != null) {
+                String contentType = request.getContentType();
+                for (String type : types) {
+                    if (contentType == null || !contentType.contains(type)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        Map<String, Object> getStats() {
+            long count = evals.sum();
+            Map<String, Object> map = new LinkedHashMap();
+            map.put("line", scenario.getLine());
+            map.put("expression", expression);
+            map.put("residual", residual);
+            map.put("hits", hits.sum());
+            map.put("evals", count);
+            map.put("jsEvals", jsEvals.sum());
+            map.put("avgMatchMillis", count == 0 ? 0 : nanos.sum() / count / 1000000.0);
+            return map;
+        }
+
+    }
+
+    static class Node {
+
+        final Map<String, Node> literals = new HashMap();
+        Node wildcard;
+        final BitSet routes = new BitSet(); // that end at this depth
+
+        void add(List<String> segments, int depth, int index) {
+            if (depth == segments.size()) {
+                routes.set(index);
+                return;
+            }
+            String segment = segments.get(depth);
+            Node child;
+            if (isWildcard(segment)) {
+                if (wildcard == null) {
+                    wildcard = new Node();
+                }
+                child = wildcard;
+            } else {
+                child = literals.computeIfAbsent(segment, k -> new Node());
+            }
+            child.add(segments, depth + 1, index);
+        }
+
+        void collect(List<String> segments, int depth, BitSet result) {
+            if (depth == segments.size()) {
+                result.or(routes);
+                return;
+            }
+            Node child = literals.get(segments.get(depth));
+            if (child != null) {
+                child.collect(segments, depth + 1, result);
+            }
+            if (wildcard != null) {
+                wildcard.collect(segments, depth + 1, result);
+            }
+        }
+
+    }
+
+    // same rules as HttpUtils.parseUriPattern()
+    private static boolean isWildcard(String segment) {
+        return segment.length() > 1 && segment.startsWith("{") && segment.endsWith("}");
+    }
+
+    private static List<String> segments(String path) {
+        int pos = path.indexOf('?');
+        if (pos != -1) {
+            path = path.substring(0, pos);
+        }
+        return StringUtils.split(path, '/', false);
+    }
+
+    final List<Route> routes;
+    private final Map<String, Node> paths = new HashMap(); // by method
+    private final Map<String, BitSet> anyPath = new HashMap(); // by method
+
+    /**
+     * @param sections in order, a scenario outline ends the list
+     * @param staticNames predicates that can be lifted, absent if re-defined
+     * in the background
+     */
+    MockRoutes(List<FeatureSection> sections, List<String> staticNames) {
+        List<Route> list = new ArrayList(sections.size());
+        for (FeatureSection fs : sections) {
+            if (fs.isOutline()) {
+                break;
+            }
+            Scenario scenario = fs.getScenario();
+            String expression = StringUtils.trimToNull(scenario.getName() + scenario.getDescription());
+            Route route = new Route(scenario, list.size(), expression);
+            list.add(route);
+            if (expression != null) {
+                compile(route, staticNames);
+            }
+            if (route.path == null) {
+                anyPath.computeIfAbsent(route.method == null ? ANY : route.method, k -> new BitSet()).set(route.index);
+            } else {
+                paths.computeIfAbsent(route.method == null ? ANY : route.method, k -> new Node()).add(segments(route.path), 0, route.index);
+            }
+        }
+        routes = Collections.unmodifiableList(list);
+    }
+
+    private static void compile(Route route, List<String> staticNames) {
+        List<String> terms = splitConjunction(route.expression);
+        if (terms == null) {
+            route.residual = route.expression;
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (String term : terms) {
+            Matcher matcher = PREDICATE.matcher(term);
+            if (matcher.matches() && staticNames.contains(matcher.group(1))) {
+                String name = matcher.group(1);
+                String arg = matcher.group(3);
+                switch (name) {
+                    case "pathMatches":
+                        if (route.path == null) {
+                            route.path = arg;
+                            continue;
+                        }
+                        break; // a second one is left to js
+                    case "methodIs":
+                        if (route.method == null) {
+                            route.method = arg.toUpperCase();
+                            continue;
+                        }
+                        break;
+                    case "paramExists":
+                        if (route.params == null) {
+                            route.params = new ArrayList();
+                        }
+                        route.params.add(arg);
+                        continue;
+                    default: // typeContains
+                        if (route.types == null) {
+                            route.types = new ArrayList();
+                        }
+                        route.types.add(arg);
+                        continue;
+                }
+            }
+            if (sb.length() > 0) {
+                sb.append(" && ");
+            }
+            sb.append('(').append(term).append(')');
+        }
+        route.residual = sb.length() == 0 ? null : sb.toString();
+    }
+
+    /**
+     * top-level operands of a chain of &&, or null if the expression has
+     * anything of lower precedence (||, ?:, assignment, comma) that would make
+     * splitting on && unsafe
+     */
+    static List<String> splitConjunction(String expression) {
+        List<String> terms = new ArrayList();
+        int depth = 0;
+        char quote = 0;
+        int start = 0;
+        int len = expression.length();
+        for (int i = 0; i < len; i++) {
+            char c = expression.charAt(i);
+            if (quote != 0) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+                continue;
+            }
+            switch (c) {
+                case '\'':
+                case '"':
+                case '`':
+                    quote = c;
+                    break;
+                case '(':
+                case '[':
+                case '{':
+                    depth++;
+                    break;
+                case ')':
+                case ']':
+                case '}':
+                    depth--;
+                    break;
+                default:
+                    if (depth != 0) {
+                        break;
+                    }
+                    char next = i + 1 < len ? expression.charAt(i + 1) : 0;
+                    if (c == '&' && next == '&') {
+                        terms.add(expression.substring(start, i).trim());
+                        start = i + 2;
+                        i++;
+                    } else if (c == '|' && next == '|' || c == '?' || c == ',' || c == ';') {
+                        return null;
+                    } else if (c == '=' && next != '=') { // assignment or arrow, not ==, !=, <=, >=
+                        char prev = i > 0 ? expression.charAt(i - 1) : 0;
+                        if (prev != '=' && prev != '!' && prev != '<' && prev != '>') {
+                            return null;
+                        }
+                    }
+            }
+        }
+        if (quote != 0 || depth != 0) {
+            return null;
+        }
+        terms.add(expression.substring(start).trim());
+        return terms;
+    }
+
+    /**
+     * @return the routes that can match the request, in order - the residual
+     * js of each still has to be evaluated
+     */
+    List<Route> candidates(Request request) {
+        BitSet bits = new BitSet(routes.size());
+        List<String> segments = null;
+        String method = request.getMethod().toUpperCase();
+        for (String key : new String[]{method, ANY}) {
+            BitSet any = anyPath.get(key);
+            if (any != null) {
+                bits.or(any);
+            }
+            Node root = paths.get(key);
+            if (root != null) {
+                if (segments == null) {
+                    segments = segments(request.getPath());
+                }
+                root.collect(segments, 0, bits);
+            }
+        }
+        List<Route> list = new ArrayList(bits.cardinality());
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            Route route = routes.get(i);
+            if (route.matches(request)) {
+                list.add(route);
+            }
+        }
+        return list;
+    }
+
+    List<Map<String, Object>> getStats() {
+        List<Map<String, Object>> list = new ArrayList(routes.size());
+        for (Route route : routes) {
+            list.add(route.getStats());
+        }
+        return list;
+    }
+
+}
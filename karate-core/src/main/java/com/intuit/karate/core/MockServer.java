@@ -29,12 +29,12 @@ import com.intuit.karate.http.Request;
 import com.intuit.karate.http.Response;
 import com.intuit.karate.http.ServerHandler;
 import com.intuit.karate.http.SslContextFactory;
-import com.linecorp.armeria.server.HttpService;
 import com.linecorp.armeria.server.Server;
 import com.linecorp.armeria.server.ServerBuilder;
 import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  *
@@ -42,8 +42,8 @@ import java.util.Map;
  */
 public class MockServer extends HttpServer {
 
-    private MockServer(ServerBuilder sb) {
-        super(sb);
+    private MockServer(ServerBuilder sb, HttpServerHandler handler) {
+        super(sb, handler);
     }
 
     public static class Builder {
@@ -56,6 +56,9 @@ public class MockServer extends HttpServer {
         int port;
         boolean ssl;
         boolean watch;
+        boolean concurrent;
+        int threads;
+        Executor executor;
         File certFile;
         File keyFile;
         Map<String, Object> args;
@@ -65,6 +68,21 @@ public class MockServer extends HttpServer {
             return this;
         }
 
+        public Builder concurrent(boolean value) {
+            concurrent = value;
+            return this;
+        }
+
+        public Builder threads(int value) {
+            threads = value;
+            return this;
+        }
+
+        public Builder executor(Executor value) {
+            executor = value;
+            return this;
+        }
+
         public Builder http(int value) {
             port = value;
             return this;
@@ -112,10 +130,10 @@ public class MockServer extends HttpServer {
             } else {
                 sb.http(port);
             }
-            ServerHandler handler = watch ? new ReloadingMockHandler(feature, args) : new MockHandler(feature, args);
-            HttpService service = new HttpServerHandler(handler);
+            ServerHandler handler = watch ? new ReloadingMockHandler(feature, args, concurrent) : new MockHandler(feature, args, concurrent);
+            HttpServerHandler service = HttpServer.handlerFor(sb, handler, threads, executor);
             sb.service("prefix:/", service);
-            return new MockServer(sb);
+            return new MockServer(sb, service);
         }
 
     }
@@ -123,18 +141,20 @@ public class MockServer extends HttpServer {
     private static class ReloadingMockHandler implements ServerHandler {
                 
         private final Map<String, Object> args;
+        private final boolean concurrent;
         private MockHandler handler;
         private final File file;
         private long lastModified;
 
-        public ReloadingMockHandler(Feature feature, Map<String, Object> args) {
+        public ReloadingMockHandler(Feature feature, Map<String, Object> args, boolean concurrent) {
             file = feature.getResource().getFile();
             if (file != null) {
                 lastModified = file.lastModified();
                 logger.debug("watch mode init - last modified: {}", lastModified);
             }
             this.args = args;
-            handler = new MockHandler(feature, args);
+            this.concurrent = concurrent;
+            handler = new MockHandler(feature, args, concurrent);
             
         }                
 
@@ -144,7 +164,7 @@ public class MockServer extends HttpServer {
                 if (file.lastModified() > lastModified) {
                     logger.info("watch mode - reloading file");
                     lastModified = file.lastModified();
-                    handler = new MockHandler(Feature.read(file), args);
+                    handler = new MockHandler(Feature.read(file), args, concurrent);
                 }
             }
             return handler.handle(request);
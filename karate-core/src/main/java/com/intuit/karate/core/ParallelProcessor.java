@@ -28,6 +28,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,27 +52,67 @@ public abstract class ParallelProcessor<T> {
     }
 
     public void execute() {
-        publisher.forEachRemaining(in -> {
-            if (shouldRunSynchronously(in)) {
-                process(in);
-            } else {
-                final CompletableFuture future = new CompletableFuture();
-                futures.add(future);
-                executor.submit(() -> {
-                    try {
-                        process(in);
-                    } catch (Exception e) {
-                        logger.error("[parallel] input item failed: {}", e.getMessage());
-                    }
-                    future.complete(Boolean.TRUE);
-                });
+        // enumerating can be slow (e.g. a dynamic outline background) so it
+        // happens on the worker pool, and the monitor is never blocked
+        executor.execute(new Task(Long.MAX_VALUE, this::publish));
+    }
+
+    private void publish() {
+        try {
+            while (publisher.hasNext()) {
+                T in = publisher.next();
+                if (shouldRunSynchronously(in)) {
+                    // on the monitor, which is single-threaded, and the rest is published
+                    // only after it is done - without holding a worker thread while waiting
+                    CompletableFuture.runAsync(() -> process(in), monitor).whenComplete((r, e) -> {
+                        if (e != null) {
+                            logger.error("[parallel] input item failed: {}", e.getMessage());
+                        }
+                        executor.execute(new Task(Long.MAX_VALUE, this::publish));
+                    });
+                    return;
+                } else {
+                    final CompletableFuture future = new CompletableFuture();
+                    futures.add(future);
+                    executor.execute(new Task(priority(in), () -> {
+                        CompletableFuture offloaded = null;
+                        try {
+                            offloaded = offload(in);
+                            if (offloaded == null) {
+                                process(in);
+                            }
+                        } catch (Exception e) {
+                            logger.error("[parallel] input item failed: {}", e.getMessage());
+                        }
+                        if (offloaded == null) {
+                            future.complete(Boolean.TRUE);
+                        } else {
+                            offloaded.whenComplete((r, e) -> {
+                                if (e != null) {
+                                    logger.error("[parallel] input item failed: {}", ((Throwable) e).getMessage());
+                                }
+                                future.complete(Boolean.TRUE);
+                            });
+                        }
+                    }));
+                }
             }
-        });
+        } catch (Exception e) {
+            logger.error("[parallel] publisher failed: {}", e.getMessage());
+        }
         final CompletableFuture[] futuresArray = futures.toArray(new CompletableFuture[futures.size()]);
-        monitor.submit(() -> {
-            CompletableFuture.allOf(futuresArray).join();
-            onComplete();
-        });
+        CompletableFuture.allOf(futuresArray).whenCompleteAsync((r, e) -> onComplete(), monitor);
+    }
+
+    // only has an effect if the executor has a priority queue, higher first
+    public long priority(T in) {
+        return 0;
+    }
+
+    // return a future if the item was handed off elsewhere (e.g. a remote job
+    // executor), so that the worker thread is not held until it completes
+    public CompletableFuture offload(T in) {
+        return null;
     }
 
     public boolean shouldRunSynchronously(T in) {
@@ -80,6 +121,32 @@ public abstract class ParallelProcessor<T> {
         return false;
     }
 
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    public static class Task implements Runnable, Comparable<Task> {
+
+        private final long priority;
+        private final long sequence = SEQUENCE.incrementAndGet();
+        private final Runnable runnable;
+
+        public Task(long priority, Runnable runnable) {
+            this.priority = priority;
+            this.runnable = runnable;
+        }
+
+        @Override
+        public void run() {
+            runnable.run();
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            int result = Long.compare(other.priority, priority);
+            return result == 0 ? Long.compare(sequence, other.sequence) : result;
+        }
+
+    }
+
     public abstract void process(T in);
 
     public abstract void onComplete();
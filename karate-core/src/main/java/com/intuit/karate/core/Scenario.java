@@ -79,7 +79,7 @@ public class Scenario {
         }
     }
 
-    // only called for dynamic scenarios
+    // called for dynamic scenarios, or when the name is evaluated per run
     public Scenario copy(int exampleIndex) {
         Scenario s = new Scenario(feature, section, exampleIndex);
         s.name = name;
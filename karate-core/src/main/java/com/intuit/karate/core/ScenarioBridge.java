@@ -51,6 +51,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -168,18 +169,19 @@ public class ScenarioBridge implements PerfContext {
 
     public Object callSingle(String fileName, Object arg) throws Exception {
         ScenarioEngine engine = getEngine();
-        final Map<String, Object> CACHE = engine.runtime.featureRuntime.suite.suiteCache;
-        if (CACHE.containsKey(fileName)) {
+        final CallLocks CACHE = engine.runtime.featureRuntime.suite.callSingleLocks;
+        if (CACHE.isCached(fileName)) {
             engine.logger.trace("callSingle cache hit: {}", fileName);
-            return fromCache(engine, CACHE.get(fileName));
+            return fromCache(engine, CACHE.getCached(fileName));
         }
         long startTime = System.currentTimeMillis();
         engine.logger.trace("callSingle waiting for lock: {}", fileName);
-        synchronized (CACHE) { // lock
-            if (CACHE.containsKey(fileName)) { // retry
+        ReentrantLock lock = CACHE.lock(fileName);
+        try {
+            if (CACHE.isCached(fileName)) { // retry
                 long endTime = System.currentTimeMillis() - startTime;
                 engine.logger.warn("this thread waited {} milliseconds for callSingle lock: {}", endTime, fileName);
-                return fromCache(engine, CACHE.get(fileName));
+                return fromCache(engine, CACHE.getCached(fileName));
             }
             // this thread is the 'winner'
             engine.logger.info(">> lock acquired, begin callSingle: {}", fileName);
@@ -228,9 +230,11 @@ public class ScenarioBridge implements PerfContext {
                 result = resultVar.getValue();
                 engine.recurseAndDetach(result);
             }
-            CACHE.put(fileName, result);
+            CACHE.putCached(fileName, result);
             engine.logger.info("<< lock released, cached callSingle: {}", fileName);
             return fromCache(engine, result);
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -734,6 +738,10 @@ public class ScenarioBridge implements PerfContext {
         }
         Map<String, Object> arg = (Map) config.get("arg");
         builder.args(arg);
+        Boolean concurrent = (Boolean) config.get("concurrent");
+        if (concurrent != null) {
+            builder.concurrent(concurrent);
+        }
         if (ssl) {
             builder.https(port);
         } else {
@@ -34,6 +34,7 @@ import com.intuit.karate.StringUtils;
 import com.intuit.karate.XmlUtils;
 import com.intuit.karate.driver.Driver;
 import com.intuit.karate.driver.DriverOptions;
+import com.intuit.karate.driver.DriverPool;
 import com.intuit.karate.driver.Key;
 import com.intuit.karate.graal.JsEngine;
 import com.intuit.karate.graal.JsFunction;
@@ -56,6 +57,7 @@ import java.security.KeyStore;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.regex.Matcher;
@@ -102,6 +104,7 @@ public class ScenarioEngine {
 
     private boolean aborted;
     private Throwable failedReason;
+    private Driver checkedOutDriver; // from the suite driver pool
 
     protected JsEngine JS;
 
@@ -854,7 +857,13 @@ public class ScenarioEngine {
             if (v.isMap()) {
                 options.putAll(v.getValue());
             }
-            setDriver(DriverOptions.start(options, runtime));
+            checkinDriver();
+            if (DriverPool.isPooled(options)) {
+                checkedOutDriver = runtime.featureRuntime.suite.driverPool.checkout(options, runtime);
+                setDriver(checkedOutDriver);
+            } else {
+                setDriver(DriverOptions.start(options, runtime));
+            }
         }
         if (v.isString()) {
             driver.setUrl(v.getAsString());
@@ -888,6 +897,15 @@ public class ScenarioEngine {
         }
     }
 
+    // only a driver this engine checked out of the pool, the caller is still
+    // using one that was inherited from it
+    private boolean checkinDriver() {
+        boolean pooled = driver != null && driver == checkedOutDriver
+                && runtime.featureRuntime.suite.driverPool.checkin(driver);
+        checkedOutDriver = null;
+        return pooled;
+    }
+
     public void setDriver(Driver driver) {
         this.driver = driver;
         setHiddenVariable(DRIVER, driver);
@@ -916,6 +934,12 @@ public class ScenarioEngine {
             // TODO life-cycle this hand off
             ScenarioEngine caller = runtime.caller.parentRuntime.engine;
             if (driver != null) { // a called feature inited the driver
+                if (driver != caller.driver) { // replaced, so the pooled one goes back
+                    caller.checkinDriver();
+                    caller.checkedOutDriver = checkedOutDriver;
+                } else { // a nested checkout of the driver the caller already holds
+                    checkinDriver();
+                }
                 caller.setDriver(driver);
             }
             if (robot != null) {
@@ -929,24 +953,31 @@ public class ScenarioEngine {
             }
             if (driver != null) { // TODO move this to Plugin.afterScenario()                
                 DriverOptions options = driver.getOptions();
-                if (options.stop) {
-                    driver.quit();
-                }
-                if (options.target != null) {
-                    logger.debug("custom target configured, attempting stop()");
-                    Map<String, Object> map = options.target.stop(runtime);
-                    String video = (String) map.get("video");
-                    embedVideo(video);
+                if (checkinDriver()) {
+                    // not stopped, so there is no video and nothing to run after stop
+                    logger.debug("driver returned to pool");
                 } else {
-                    if (options.afterStop != null) {
-                        Command.execLine(null, options.afterStop);
+                    if (options.stop) {
+                        driver.quit();
+                    }
+                    if (options.target != null) {
+                        logger.debug("custom target configured, attempting stop()");
+                        Map<String, Object> map = options.target.stop(runtime);
+                        String video = (String) map.get("video");
+                        embedVideo(video);
+                    } else {
+                        if (options.afterStop != null) {
+                            Command.execLine(null, options.afterStop);
+                        }
+                        embedVideo(options.videoFile);
                     }
-                    embedVideo(options.videoFile);
                 }
             }
             if (robot != null) {
                 robot.afterScenario();
             }
+        } else { // called feature with isolated scope, nothing is handed back
+            checkinDriver();
         }
     }
 
@@ -1014,6 +1045,13 @@ public class ScenarioEngine {
         }
     }
 
+    // only when no value from this js context can be used any more
+    protected void releaseJsContext() {
+        if (JS != null) {
+            JS.release();
+        }
+    }
+
     private void attachVariables() {
         vars.forEach((k, v) -> {
             switch (v.type) {
@@ -1756,7 +1794,7 @@ public class ScenarioEngine {
     }
 
     public Match.Result match(Match.Type matchType, Object actual, Object expected) {
-        return Match.execute(JS, matchType, actual, expected);
+        return Match.execute(JS, matchType, actual, expected, config.getMatchFailureLimit());
     }
 
     private static final Pattern VAR_AND_PATH_PATTERN = Pattern.compile("\\w+");
@@ -1900,7 +1938,8 @@ public class ScenarioEngine {
         }
         long startTime = System.currentTimeMillis();
         logger.trace("callonce waiting for lock: {}", cacheKey);
-        synchronized (CACHE) {
+        ReentrantLock lock = runtime.featureRuntime.callOnceLocks.lock(cacheKey);
+        try {
             result = CACHE.get(cacheKey); // retry
             if (result != null) {
                 long endTime = System.currentTimeMillis() - startTime;
@@ -1920,6 +1959,8 @@ public class ScenarioEngine {
             CACHE.put(cacheKey, result);
             logger.info("<< lock released, cached callonce: {}", cacheKey);
             return resultValue; // another routine will apply globally if needed
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -24,13 +24,19 @@
 package com.intuit.karate.core;
 
 import com.intuit.karate.FileUtils;
+import com.intuit.karate.Json;
 import com.intuit.karate.StringUtils;
 import com.intuit.karate.JsonUtils;
+import com.intuit.karate.XmlUtils;
 import com.intuit.karate.resource.Resource;
 import com.intuit.karate.resource.ResourceUtils;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.w3c.dom.Node;
 
 /**
  *
@@ -49,10 +55,10 @@ public class ScenarioFileReader {
     public Object readFile(String text) {
         StringUtils.Pair pair = parsePathAndTags(text);
         text = pair.left;
-        if (isJsonFile(text) || isXmlFile(text)) {
-            String contents = readFileAsString(text);
-            Variable temp = engine.evalKarateExpression(contents);
-            return temp.getValue();
+        if (isJsonFile(text)) {
+            return readData(text, ScenarioFileReader::parseJson);
+        } else if (isXmlFile(text)) {
+            return readData(text, ScenarioFileReader::parseXml);
         } else if (isJavaScriptFile(text)) {
             String contents = readFileAsString(text);
             Variable temp = engine.evalJs("(" + contents + ")");
@@ -61,23 +67,64 @@ public class ScenarioFileReader {
             return readFileAsString(text);
         } else if (isFeatureFile(text)) {
             Resource fr = toResource(text);
-            Feature feature = Feature.read(fr);
+            Feature feature = featureRuntime.suite.featureCache.get(fr);
             feature.setCallTag(pair.right);
             return feature;
         } else if (isCsvFile(text)) {
-            String contents = readFileAsString(text);
-            return JsonUtils.fromCsv(contents);
+            DataCache.Entry entry = featureRuntime.suite.dataCache.get(toResource(text), JsonUtils::fromCsv);
+            return JsonUtils.deepCopy(entry.value);
         } else if (isYamlFile(text)) {
-            String contents = readFileAsString(text);
-            Object asJson = JsonUtils.fromYaml(contents);
-            Variable temp = engine.evalKarateExpression(JsonUtils.toJson(asJson));
-            return temp.getValue();
+            DataCache.Entry entry = featureRuntime.suite.dataCache.get(toResource(text), ScenarioFileReader::parseYaml);
+            return copyData(entry);
         } else {
             InputStream is = readFileAsStream(text);
             return FileUtils.toBytes(is); // TODO stream
         }
     }
 
+    private Object readData(String path, Function<String, Object> parser) {
+        DataCache.Entry entry = featureRuntime.suite.dataCache.get(toResource(path), parser);
+        if (entry.value == null) { // not json or xml after all, e.g. a js expression
+            return engine.evalKarateExpression(entry.text).getValue();
+        }
+        return copyData(entry);
+    }
+
+    // the parsed value is shared across scenarios, so always hand out a copy
+    private Object copyData(DataCache.Entry entry) {
+        Object value = entry.value;
+        if (value instanceof Node) {
+            // the dom is not thread-safe even for reads (e.g. lazily expanded nodes)
+            synchronized (value) {
+                value = ((Node) value).cloneNode(true);
+            }
+        } else if (value instanceof Map || value instanceof List) {
+            value = JsonUtils.deepCopy(value);
+        } else {
+            return value;
+        }
+        if (entry.isEmbedded()) {
+            return engine.evalEmbeddedExpressions(new Variable(value)).getValue();
+        }
+        return value;
+    }
+
+    private static Object parseJson(String text) {
+        text = StringUtils.trimToNull(text);
+        return text != null && ScenarioEngine.isJson(text) ? Json.of(text).value() : null;
+    }
+
+    private static Object parseXml(String text) {
+        text = StringUtils.trimToNull(text);
+        return text != null && ScenarioEngine.isXml(text) ? XmlUtils.toXmlDoc(text) : null;
+    }
+
+    private static Object parseYaml(String text) {
+        Object asJson = JsonUtils.fromYaml(text);
+        Object value = parseJson(JsonUtils.toJson(asJson));
+        return value == null ? asJson : value;
+    }
+
     public File relativePathToFile(String relativePath) {
         return toResource(relativePath).getFile();
     }
@@ -24,6 +24,7 @@
 package com.intuit.karate.core;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -49,6 +50,7 @@ public class ScenarioIterator implements Spliterator<ScenarioRuntime> {
     private Variable expressionValue;
     private int index;
     private ScenarioRuntime background;
+    private ScenarioTemplate template;
 
     public ScenarioIterator(FeatureRuntime featureRuntime) {
         this.featureRuntime = featureRuntime;
@@ -70,9 +72,13 @@ public class ScenarioIterator implements Spliterator<ScenarioRuntime> {
                 if (sections.hasNext()) {
                     FeatureSection section = sections.next();
                     if (section.isOutline()) {
-                        scenarios = section.getScenarioOutline().getScenarios(featureRuntime).iterator();
+                        scenarios = section.getScenarioOutline().iterator(featureRuntime);
                     } else {
-                        scenarios = Collections.singletonList(section.getScenario()).iterator();
+                        Scenario scenario = section.getScenario();
+                        if (ScenarioRuntime.isNameEvaluated(scenario.getName())) {
+                            scenario = scenario.copy(-1); // name is set per run, don't touch the (cached) parse
+                        }
+                        scenarios = Collections.singletonList(scenario).iterator();
                     }
                 } else {
                     return false;
@@ -83,6 +89,7 @@ public class ScenarioIterator implements Spliterator<ScenarioRuntime> {
                 index = 0;
                 expressionValue = null;
                 background = null;
+                template = null;
             } else {
                 scenarios = null;
                 return tryAdvance(action);
@@ -141,10 +148,12 @@ public class ScenarioIterator implements Spliterator<ScenarioRuntime> {
                 Scenario dynamic = currentScenario.copy(rowIndex); // this will set exampleIndex
                 Map<String, Object> map = rowValue.getValue();
                 dynamic.setExampleData(map); // and here we set exampleData
-                map.forEach((k, v) -> {
-                    Variable var = new Variable(v);
-                    dynamic.replace("<" + k + ">", var.getAsString());
-                });
+                Map<String, String> values = new HashMap(map.size());
+                map.forEach((k, v) -> values.put(k, new Variable(v).getAsString()));
+                if (template == null) {
+                    template = new ScenarioTemplate(currentScenario.getName(), currentScenario.getSteps());
+                }
+                template.apply(dynamic, values);
                 action.accept(new ScenarioRuntime(featureRuntime, dynamic, background));
                 return true;
             } else { // assume that this is signal to stop the dynamic scenario outline
@@ -24,7 +24,11 @@
 package com.intuit.karate.core;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
  * @author pthomas3
@@ -83,42 +87,80 @@ public class ScenarioOutline {
 
     public List<Scenario> getScenarios(FeatureRuntime fr) {
         List<Scenario> list = new ArrayList();
+        iterator(fr).forEachRemaining(list::add);
+        return list;
+    }
+
+    private volatile ScenarioTemplate template; // the parse is cached and shared across threads
+
+    private ScenarioTemplate getTemplate() {
+        if (template == null) {
+            template = new ScenarioTemplate(name, steps);
+        }
+        return template;
+    }
+
+    // rows are expanded one at a time, so huge examples tables don't all sit in memory
+    public Iterator<Scenario> iterator(FeatureRuntime fr) {
         boolean examplesHaveTags = examplesTables.stream().anyMatch(t -> !t.getTags().isEmpty());
-        for (ExamplesTable examples : examplesTables) {
-            boolean selectedForExecution = false;
-            if (fr != null && examplesHaveTags) {
-                // getting examples in the context of an execution
-                // if the examples do not have any tagged example, do not worry about selecting
-                Tags tableTags = Tags.merge(examples.getTags());
-                boolean executeForTable = tableTags.evaluate(fr.suite.tagSelector);
-                if (executeForTable) {
-                    selectedForExecution = true;
+        return new Iterator<Scenario>() {
+
+            final Iterator<ExamplesTable> tables = examplesTables.iterator();
+            ExamplesTable examples;
+            int row;
+            int rowCount;
+
+            @Override
+            public boolean hasNext() {
+                while (examples == null || row >= rowCount) {
+                    if (!tables.hasNext()) {
+                        return false;
+                    }
+                    ExamplesTable next = tables.next();
+                    if (fr != null && examplesHaveTags) {
+                        // getting examples in the context of an execution
+                        // if the examples do not have any tagged example, do not worry about selecting
+                        Tags tableTags = Tags.merge(next.getTags());
+                        if (!tableTags.evaluate(fr.suite.tagSelector)) {
+                            continue;
+                        }
+                    }
+                    examples = next;
+                    Table table = next.getTable();
+                    if (table.isDynamic()) {
+                        row = 0;
+                        rowCount = 1;
+                    } else {
+                        row = 1; // don't include header row
+                        rowCount = table.getRows().size();
+                    }
                 }
-            } else {
-                selectedForExecution = true;
+                return true;
             }
 
-            if (selectedForExecution) {
+            @Override
+            public Scenario next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int i = row++;
                 Table table = examples.getTable();
                 if (table.isDynamic()) {
                     // technically row index 0 to denote an example (not -1)
-                    Scenario scenario = toScenario(table.getDynamicExpression(), 0, table.getLineNumberForRow(0), examples.getTags());
-                    list.add(scenario);
-                } else {
-                    int rowCount = table.getRows().size();
-                    for (int i = 1; i < rowCount; i++) { // don't include header row
-                        int exampleIndex = i - 1; // next line will set exampleIndex on scenario
-                        Scenario scenario = toScenario(null, exampleIndex, table.getLineNumberForRow(i), examples.getTags());
-                        scenario.setExampleData(table.getExampleData(exampleIndex)); // and we set exampleData here
-                        list.add(scenario);
-                        for (String key : table.getKeys()) {
-                            scenario.replace("<" + key + ">", table.getValueAsString(key, i));
-                        }
-                    }
+                    return toScenario(table.getDynamicExpression(), 0, table.getLineNumberForRow(0), examples.getTags());
                 }
+                int exampleIndex = i - 1; // next line will set exampleIndex on scenario
+                Scenario scenario = toScenario(null, exampleIndex, table.getLineNumberForRow(i), examples.getTags());
+                scenario.setExampleData(table.getExampleData(exampleIndex)); // and we set exampleData here
+                Map<String, String> values = new HashMap();
+                for (String key : table.getKeys()) {
+                    values.put(key, table.getValueAsString(key, i));
+                }
+                getTemplate().apply(scenario, values);
+                return scenario;
             }
-        }
-        return list;
+
+        };
     }
 
     public FeatureSection getSection() {
@@ -302,7 +302,7 @@ public class ScenarioRuntime implements Runnable {
     }
 
     private static boolean isSelectedForExecution(FeatureRuntime fr, Scenario scenario, Tags tags) {
-        Feature feature = scenario.getFeature();
+        Feature feature = fr.feature; // parsed scenarios can be shared via the feature cache
         int callLine = feature.getCallLine();
         if (callLine != -1) {
             int sectionLine = scenario.getSection().getLine();
@@ -353,6 +353,7 @@ public class ScenarioRuntime implements Runnable {
             steps = background == null ? scenario.getStepsIncludingBackground() : scenario.getSteps();
         }
         ScenarioEngine.set(engine);
+        long initStart = System.nanoTime();
         engine.init();
         result.setExecutorName(Thread.currentThread().getName());
         result.setStartTime(System.currentTimeMillis());
@@ -363,6 +364,7 @@ public class ScenarioRuntime implements Runnable {
                 evalConfigJs(featureRuntime.suite.karateConfig, "karate-config.js");
                 evalConfigJs(featureRuntime.suite.karateConfigEnv, "karate-config-" + featureRuntime.suite.env + ".js");
             }
+            featureRuntime.suite.addScenarioInitTime(System.nanoTime() - initStart, engine.JS.isReused());
             if (this.isDynamicBackground()) {
                 featureRuntime.suite.hooks.forEach(h -> h.beforeBackground(this));
                 if (featureRuntime.suite.debugMode) {
@@ -557,9 +559,17 @@ public class ScenarioRuntime implements Runnable {
         return scenario.toString();
     }
 
+    private static boolean isWrappedByBackTick(String scenarioName) {
+        return scenarioName != null && scenarioName.length() > 1 && '`' == scenarioName.charAt(0) && '`' == scenarioName.charAt((scenarioName.length() - 1));
+    }
+
+    public static boolean isNameEvaluated(String scenarioName) {
+        return scenarioName != null && (isWrappedByBackTick(scenarioName) || ScenarioEngine.hasJavaScriptPlacehoder(scenarioName));
+    }
+
     public void evaluateScenarioName() {
         String scenarioName = this.scenario.getName();
-        boolean wrappedByBackTick = scenarioName != null && scenarioName.length() > 1 && '`' == scenarioName.charAt(0) && '`' == scenarioName.charAt((scenarioName.length() - 1));
+        boolean wrappedByBackTick = isWrappedByBackTick(scenarioName);
         boolean hasJavascriptPlaceholder = ScenarioEngine.hasJavaScriptPlacehoder(scenarioName);
         if (wrappedByBackTick || hasJavascriptPlaceholder) {
             String eval = scenarioName;
@@ -0,0 +1,160 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * the steps of a scenario outline pre-split on the cucumber-style
+ * "&lt;placeholder&gt;" tokens, so that each examples row costs only its own
+ * substitutions instead of a full text scan per key
+ *
+ * @author pthomas3
+ */
+class ScenarioTemplate {
+
+    private final String[] name;
+    private final StepTemplate[] steps;
+
+    static class StepTemplate {
+
+        final String[] text;
+        final String[] docString;
+        final String[][][] table; // null if no cell has a placeholder
+
+        StepTemplate(Step step) {
+            text = tokenize(step.getText());
+            docString = tokenize(step.getDocString());
+            Table original = step.getTable();
+            if (original == null) {
+                table = null;
+            } else {
+                List<List<String>> rows = original.getRows();
+                String[][][] temp = new String[rows.size()][][];
+                boolean found = false;
+                for (int i = 1; i < temp.length; i++) { // don't include header row
+                    List<String> row = rows.get(i);
+                    temp[i] = new String[row.size()][];
+                    for (int j = 0; j < temp[i].length; j++) {
+                        temp[i][j] = tokenize(row.get(j));
+                        found = found || temp[i][j] != null;
+                    }
+                }
+                table = found ? temp : null;
+            }
+        }
+
+        void apply(Step step, Map<String, String> values) {
+            if (text != null) {
+                step.setText(render(text, values));
+            }
+            if (docString != null) {
+                step.setDocString(render(docString, values));
+            }
+            if (table != null) {
+                Table original = step.getTable();
+                List<List<String>> rows = original.getRows();
+                List<List<String>> list = new ArrayList(rows.size());
+                list.add(rows.get(0)); // header row
+                for (int i = 1; i < table.length; i++) {
+                    List<String> row = rows.get(i);
+                    List<String> replaced = new ArrayList(row.size());
+                    list.add(replaced);
+                    for (int j = 0; j < table[i].length; j++) {
+                        replaced.add(table[i][j] == null ? row.get(j) : render(table[i][j], values));
+                    }
+                }
+                step.setTable(original.replace(list));
+            }
+        }
+
+    }
+
+    ScenarioTemplate(String name, List<Step> steps) {
+        this.name = tokenize(name);
+        this.steps = new StepTemplate[steps.size()];
+        for (int i = 0; i < this.steps.length; i++) {
+            this.steps[i] = new StepTemplate(steps.get(i));
+        }
+    }
+
+    // the scenario has to be a fresh copy of the steps this was created from
+    void apply(Scenario scenario, Map<String, String> values) {
+        if (name != null) {
+            scenario.setName(render(name, values));
+        }
+        List<Step> list = scenario.getSteps();
+        for (int i = 0; i < steps.length; i++) {
+            steps[i].apply(list.get(i), values);
+        }
+    }
+
+    // literals at even and placeholder names at odd indexes, null if nothing to replace
+    static String[] tokenize(String text) {
+        if (text == null || text.indexOf('<') == -1) {
+            return null;
+        }
+        List<String> list = new ArrayList();
+        int pos = 0;
+        int from = 0;
+        while (true) {
+            int end = text.indexOf('>', from);
+            if (end == -1) {
+                break;
+            }
+            int start = text.lastIndexOf('<', end);
+            if (start >= pos) {
+                list.add(text.substring(pos, start));
+                list.add(text.substring(start + 1, end));
+                pos = end + 1;
+            }
+            from = end + 1;
+        }
+        if (list.isEmpty()) {
+            return null;
+        }
+        list.add(text.substring(pos));
+        return list.toArray(new String[list.size()]);
+    }
+
+    static String render(String[] tokens, Map<String, String> values) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < tokens.length; i++) {
+            if (i % 2 == 0) {
+                sb.append(tokens[i]);
+            } else {
+                String value = values.get(tokens[i]);
+                if (value == null) { // not a key, or a null in a dynamic outline
+                    sb.append('<').append(tokens[i]).append('>');
+                } else {
+                    sb.append(value);
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+}
@@ -49,6 +49,8 @@ public class Step {
     private String docString;
     private Table table;
 
+    volatile StepRuntime.Resolved resolved; // see StepRuntime.resolve()
+
     public static final List<String> PREFIXES = Arrays.asList("*", "Given", "When", "Then", "And", "But");
 
     public void parseAndUpdateFrom(String text) {
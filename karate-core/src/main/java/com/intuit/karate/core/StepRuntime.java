@@ -31,6 +31,8 @@ import com.intuit.karate.ScenarioActions;
 import com.intuit.karate.StringUtils;
 import cucumber.api.java.en.When;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -59,6 +61,7 @@ public class StepRuntime {
 
         final String regex;
         final Method method;
+        final MethodHandle handle;
         final Pattern pattern;
         final String keyword;
 
@@ -67,6 +70,9 @@ public class StepRuntime {
             this.method = method;
             try {
                 pattern = Pattern.compile(regex);
+                // (actions, Object[] args) -> Object, so that invokeExact() can be used
+                MethodHandle temp = MethodHandles.publicLookup().unreflect(method);
+                handle = temp.asType(temp.type().generic()).asSpreader(Object[].class, method.getParameterCount());
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -102,10 +108,29 @@ public class StepRuntime {
 
         final Method method;
         final List<String> args;
+        final MethodHandle handle; // null if re-created from a report
 
         MethodMatch(Method method, List<String> args) {
             this.method = method;
             this.args = args;
+            handle = null;
+        }
+
+        MethodMatch(MethodPattern pattern, List<String> args) {
+            method = pattern.method;
+            this.args = args;
+            handle = pattern.handle;
+        }
+
+        Object invoke(Actions actions, Object[] args) throws Throwable {
+            if (handle == null) {
+                try {
+                    return method.invoke(actions, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+            }
+            return (Object) handle.invokeExact((Object) actions, args);
         }
 
         Object[] convertArgs(Object last) {
@@ -227,12 +252,37 @@ public class StepRuntime {
         for (MethodPattern pattern : PATTERNS) {
             List<String> args = pattern.match(text);
             if (args != null) {
-                matches.add(new MethodMatch(pattern.method, args));
+                matches.add(new MethodMatch(pattern, args));
             }
         }
         return matches;
     }
 
+    static class Resolved {
+
+        final String text;
+        final List<MethodMatch> matches;
+
+        Resolved(String text, List<MethodMatch> matches) {
+            this.text = text;
+            this.matches = matches;
+        }
+
+    }
+
+    // steps are shared by every run of a (cached) feature, called features
+    // and loops, so the regex scan happens once per step and not per execution
+    private static List<MethodMatch> resolve(Step step) {
+        String text = step.getText();
+        Resolved resolved = step.resolved;
+        // the text can change after parsing, e.g. outline placeholders or a debug eval
+        if (resolved == null || !resolved.text.equals(text)) {
+            resolved = new Resolved(text, findMethodsMatching(text));
+            step.resolved = resolved;
+        }
+        return resolved.matches;
+    }
+
     public static Collection<Method> findMethodsByKeywords(List<String> text) {
         Collection<Method> methods = new HashSet();
         text.forEach(m -> {
@@ -251,7 +301,7 @@ public class StepRuntime {
 
     public static Result execute(Step step, Actions actions) {
         String text = step.getText();
-        List<MethodMatch> matches = findMethodsMatching(text);
+        List<MethodMatch> matches = resolve(step);
         if (matches.isEmpty()) {
             KarateException e = new KarateException("no step-definition method match found for: " + text);
             return Result.failed(0, e, step);
@@ -277,7 +327,7 @@ public class StepRuntime {
         }
         long startTime = System.nanoTime();
         try {
-            match.method.invoke(actions, args);
+            match.invoke(actions, args);
             if (actions.isAborted()) {
                 return Result.aborted(getElapsedTimeNanos(startTime), match);
             } else if (actions.isFailed()) {
@@ -285,10 +335,8 @@ public class StepRuntime {
             } else {
                 return Result.passed(getElapsedTimeNanos(startTime), match);
             }
-        } catch (InvocationTargetException e) {
-            return Result.failed(getElapsedTimeNanos(startTime), e.getTargetException(), step, match);
-        } catch (Exception e) {
-            return Result.failed(getElapsedTimeNanos(startTime), e, step, match);
+        } catch (Throwable t) {
+            return Result.failed(getElapsedTimeNanos(startTime), t, step, match);
         }
     }
 
@@ -102,6 +102,11 @@ public class Table {
         return new Table(list, lineNumbers);
     }
 
+    // same header and line numbers, see ScenarioTemplate
+    Table replace(List<List<String>> rows) {
+        return new Table(rows, lineNumbers);
+    }
+
     public String getValueAsString(String key, int row) {
         Column col = colMap.get(key);
         if (col == null) {
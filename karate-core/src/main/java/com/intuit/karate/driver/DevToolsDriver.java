@@ -49,6 +49,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import org.graalvm.polyglot.Value;
 
@@ -78,12 +83,15 @@ public abstract class DevToolsDriver implements Driver {
 
     protected String currentDialogText;
 
-    private int nextId;
+    private final AtomicInteger nextId = new AtomicInteger();
 
     public int nextId() {
-        return ++nextId;
+        return nextId.incrementAndGet();
     }
 
+    // replies are matched by id, so more than one command can be in flight
+    private final Map<Integer, CompletableFuture<DevToolsMessage>> pending = new ConcurrentHashMap();
+
     private MockHandler mockHandler;
 
     protected final Logger logger;
@@ -140,14 +148,60 @@ public abstract class DevToolsDriver implements Driver {
         client.send(json);
     }
 
+    public CompletableFuture<DevToolsMessage> sendAsync(DevToolsMessage dtm) {
+        CompletableFuture<DevToolsMessage> future = new CompletableFuture();
+        pending.put(dtm.getId(), future); // before sending, to avoid missing the reply
+        send(dtm);
+        return future;
+    }
+
+    // all messages are sent before waiting for any reply
+    public List<DevToolsMessage> sendAll(List<DevToolsMessage> messages) {
+        List<CompletableFuture<DevToolsMessage>> futures = new ArrayList(messages.size());
+        for (DevToolsMessage dtm : messages) {
+            futures.add(sendAsync(dtm));
+        }
+        List<DevToolsMessage> results = new ArrayList(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            DevToolsMessage dtm = messages.get(i);
+            DevToolsMessage result = await(dtm, futures.get(i));
+            if (result == null) {
+                throw new RuntimeException("failed to get reply for: " + dtm);
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    private DevToolsMessage await(DevToolsMessage dtm, CompletableFuture<DevToolsMessage> future) {
+        long timeout = dtm.getTimeout() == null ? options.getTimeout() : dtm.getTimeout();
+        try {
+            DevToolsMessage result = future.get(timeout, TimeUnit.MILLISECONDS);
+            logger.trace("<< notified: {}", dtm);
+            return result;
+        } catch (TimeoutException e) {
+            logger.error("<< timed out after milliseconds: {} - {}", timeout, dtm);
+        } catch (Exception e) {
+            logger.error("interrupted: {} wait: {}", e.getMessage(), dtm);
+        } finally {
+            pending.remove(dtm.getId());
+        }
+        return null;
+    }
+
     public DevToolsMessage sendAndWait(DevToolsMessage dtm, Predicate<DevToolsMessage> condition) {
         boolean wasSubmit = submit;
         if (condition == null && submit) {
             submit = false;
             condition = DevToolsWait.ALL_FRAMES_LOADED;
         }
-        // do stuff inside wait to avoid missing messages
-        DevToolsMessage result = wait.send(dtm, condition);
+        DevToolsMessage result;
+        if (condition == null) {
+            result = await(dtm, sendAsync(dtm));
+        } else { // waiting for events, not the reply
+            // do stuff inside wait to avoid missing messages
+            result = wait.send(dtm, condition);
+        }
         if (result == null && !wasSubmit) {
             throw new RuntimeException("failed to get reply for: " + dtm);
         }
@@ -163,6 +217,7 @@ public abstract class DevToolsDriver implements Driver {
             currentDialogText = dtm.getParam("message");
             // this will stop waiting NOW
             wait.setCondition(DevToolsWait.DIALOG_OPENING);
+            pending.values().forEach(f -> f.complete(dtm));
         }
         if (dtm.methodIs("Page.frameStartedLoading")) {
             String frameLoadingId = dtm.getParam("frameId");
@@ -189,6 +244,15 @@ public abstract class DevToolsDriver implements Driver {
             handleInterceptedRequest(dtm);
         }
         // all needed state is set above before we get into conditional checks
+        CompletableFuture<DevToolsMessage> future = dtm.getId() == null ? null : pending.remove(dtm.getId());
+        if (future != null) {
+            if (dtm.isResultError()) {
+                logger.warn("devtools error: {}", dtm);
+            } else {
+                logger.trace("<< notify: {}", dtm);
+            }
+            future.complete(dtm);
+        }
         wait.receive(dtm);
     }
 
@@ -511,7 +575,7 @@ public abstract class DevToolsDriver implements Driver {
         return DriverElement.locatorExists(this, locator);
     }
 
-    private void sendKey(char c, int modifiers, String type, Integer keyCode) {
+    private DevToolsMessage keyEvent(char c, int modifiers, String type, Integer keyCode) {
         DevToolsMessage dtm = method("Input.dispatchKeyEvent")
                 .param("modifiers", modifiers)
                 .param("type", type);
@@ -524,7 +588,7 @@ public abstract class DevToolsDriver implements Driver {
                     break;
                 case 9: // TAB
                     if ("char".equals(type)) {
-                        return; // special case
+                        return null; // special case
                     }
                     dtm.param("text", "");
                     break;
@@ -539,29 +603,47 @@ public abstract class DevToolsDriver implements Driver {
             }
             dtm.param("windowsVirtualKeyCode", keyCode);
         }
-        dtm.send();
+        return dtm;
     }
 
     @Override
     public Element input(String locator, String value) {
+        boolean submitRequested = submit;
+        submit = false; // make sure only the LAST key is handled as a submit(), not the focus
         retryIfEnabled(locator);
         // focus
         eval(options.focusJs(locator));
+        List<DevToolsMessage> events = keyEvents(value);
+        if (submitRequested && !events.isEmpty()) { // only the last key has to wait for the page to load
+            int last = events.size() - 1;
+            sendAll(events.subList(0, last));
+            submit = true; // consumed by the send() below
+            events.get(last).send();
+        } else { // the browser handles them in order, no need for a round-trip per key
+            sendAll(events);
+            submit = submitRequested;
+        }
+        return DriverElement.locatorExists(this, locator);
+    }
+
+    private List<DevToolsMessage> keyEvents(String value) {
+        List<DevToolsMessage> list = new ArrayList();
         Input input = new Input(value);
         while (input.hasNext()) {
             char c = input.next();
             int modifiers = input.getModifierFlags();
             Integer keyCode = Keys.code(c);
             if (keyCode != null) {
-                sendKey(c, modifiers, "rawKeyDown", keyCode);
-                sendKey(c, modifiers, "char", keyCode);
-                sendKey(c, modifiers, "keyUp", keyCode);
+                list.add(keyEvent(c, modifiers, "rawKeyDown", keyCode));
+                list.add(keyEvent(c, modifiers, "char", keyCode));
+                list.add(keyEvent(c, modifiers, "keyUp", keyCode));
             } else {
                 logger.warn("unknown character / key code: {}", c);
-                sendKey(c, modifiers, "char", null);
+                list.add(keyEvent(c, modifiers, "char", null));
             }
         }
-        return DriverElement.locatorExists(this, locator);
+        list.removeIf(dtm -> dtm == null);
+        return list;
     }
 
     protected int currentMouseXpos;
@@ -725,6 +807,23 @@ public abstract class DevToolsDriver implements Driver {
         method("Network.setCookie").params(cookie).send();
     }
 
+    @Override
+    public void setCookies(List<Map<String, Object>> cookies) {
+        String url = null;
+        List<DevToolsMessage> list = new ArrayList(cookies.size());
+        for (Map<String, Object> cookie : cookies) {
+            if (cookie.get("url") == null && cookie.get("domain") == null) {
+                if (url == null) {
+                    url = getUrl();
+                }
+                cookie = new HashMap(cookie); // don't mutate test
+                cookie.put("url", url);
+            }
+            list.add(method("Network.setCookie").params(cookie));
+        }
+        sendAll(list);
+    }
+
     @Override
     public void deleteCookie(String name) {
         method("Network.deleteCookies").param("name", name).param("url", getUrl()).send();
@@ -118,7 +118,9 @@ public class DevToolsWait {
 
     public void receive(DevToolsMessage dtm) {
         synchronized (this) {
-            if (condition.test(dtm)) {
+            if (condition == null) { // nothing sent yet that waits for events
+                logger.trace("<< ignore: {}", dtm);
+            } else if (condition.test(dtm)) {
                 if (dtm.isResultError()) {
                     logger.warn("devtools error: {}", dtm);
                 } else {
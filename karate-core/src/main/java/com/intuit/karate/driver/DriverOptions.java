@@ -446,6 +446,11 @@ public class DriverOptions {
         this.timeoutOverride = timeout;
     }
 
+    // when a pooled driver is handed over to the next scenario
+    public void setLogAppender(LogAppender appender) {
+        logger.setAppender(appender);
+    }
+
     public int getTimeout() {
         if (timeoutOverride != null) {
             return timeoutOverride;
@@ -0,0 +1,267 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.driver;
+
+import com.intuit.karate.core.ScenarioRuntime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * drivers configured with pool: true are not quit at the end of a scenario,
+ * they are reset and handed to the next scenario that asks for the same
+ * driver options, at most one per thread - a called feature that asks for
+ * the same options on the same thread gets the driver already checked out
+ *
+ * @author pthomas3
+ */
+public class DriverPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(DriverPool.class);
+
+    public static final String POOL = "pool";
+    public static final long DEFAULT_WAIT_MILLIS = 5 * 60 * 1000;
+
+    private final int capacity;
+    private final long waitMillis;
+    private final Map<String, Deque<Driver>> idle = new HashMap(); // guarded by itself
+    private final Map<String, Semaphore> permits = new ConcurrentHashMap();
+    private final Map<Driver, Lease> checkedOut = new ConcurrentHashMap();
+    private final AtomicBoolean shutdownHookAdded = new AtomicBoolean();
+
+    private final LongAdder started = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+    private static class Lease {
+
+        final String key;
+        final Thread owner;
+        int count = 1; // only changed by the owner thread
+
+        Lease(String key) {
+            this.key = key;
+            owner = Thread.currentThread();
+        }
+
+    }
+
+    public DriverPool(int capacity) {
+        this(capacity, DEFAULT_WAIT_MILLIS);
+    }
+
+    public DriverPool(int capacity, long waitMillis) {
+        this.capacity = capacity;
+        this.waitMillis = waitMillis;
+    }
+
+    public static boolean isPooled(Map<String, Object> options) {
+        // a custom target has its own life-cycle
+        return Boolean.TRUE.equals(options.get(POOL)) && options.get("target") == null;
+    }
+
+    private static String key(Map<String, Object> options) {
+        Map<String, Object> map = new TreeMap(options);
+        map.remove("target");
+        return map.toString();
+    }
+
+    public Driver checkout(Map<String, Object> options, ScenarioRuntime sr) {
+        return checkout(options, sr, () -> DriverOptions.start(options, sr));
+    }
+
+    Driver checkout(Map<String, Object> options, ScenarioRuntime sr, Supplier<Driver> starter) {
+        String key = key(options);
+        Thread thread = Thread.currentThread();
+        for (Map.Entry<Driver, Lease> entry : checkedOut.entrySet()) {
+            Lease lease = entry.getValue();
+            if (lease.owner == thread && lease.key.equals(key)) { // nested, e.g. a called feature
+                lease.count++;
+                return entry.getKey();
+            }
+        }
+        Semaphore semaphore = permits.computeIfAbsent(key, k -> new Semaphore(capacity));
+        long startNanos = System.nanoTime();
+        if (!semaphore.tryAcquire()) {
+            boolean acquired;
+            try {
+                acquired = semaphore.tryAcquire(waitMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("interrupted while waiting for a pooled driver: " + key);
+            }
+            if (!acquired) {
+                throw new RuntimeException("timed out after " + waitMillis + " ms waiting for a pooled driver, all "
+                        + capacity + " in use for: " + key);
+            }
+            long nanos = System.nanoTime() - startNanos;
+            waitCount.increment();
+            waitNanos.add(nanos);
+            maxWaitNanos.accumulate(nanos);
+        }
+        try {
+            Driver driver;
+            while ((driver = pollIdle(key)) != null) {
+                if (isValid(driver)) {
+                    driver.getOptions().setLogAppender(sr.logAppender);
+                    reused.increment();
+                    checkedOut.put(driver, new Lease(key));
+                    return driver;
+                }
+                sr.logger.warn("pooled driver failed validation, discarding: {}", driver.getOptions().uniqueName);
+                quitQuietly(driver);
+            }
+            driver = starter.get();
+            started.increment();
+            checkedOut.put(driver, new Lease(key));
+            if (shutdownHookAdded.compareAndSet(false, true)) {
+                // in case the suite does not get to call shutdown(), e.g. junit
+                Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
+            }
+            return driver;
+        } catch (RuntimeException e) {
+            semaphore.release();
+            throw e;
+        }
+    }
+
+    // returns false if the driver did not come from the pool
+    public boolean checkin(Driver driver) {
+        Lease lease = checkedOut.get(driver);
+        if (lease == null) {
+            return false;
+        }
+        if (lease.count > 1) { // still in use by the caller of a nested checkout
+            lease.count--;
+            return true;
+        }
+        checkedOut.remove(driver);
+        String key = lease.key;
+        try {
+            if (driver.isTerminated()) {
+                discarded.increment();
+            } else {
+                reset(driver);
+                synchronized (idle) {
+                    idle.computeIfAbsent(key, k -> new ArrayDeque()).push(driver);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("driver reset failed, will not be re-used: {}", e.getMessage());
+            quitQuietly(driver);
+        } finally {
+            permits.get(key).release();
+        }
+        return true;
+    }
+
+    private Driver pollIdle(String key) {
+        synchronized (idle) {
+            Deque<Driver> drivers = idle.get(key);
+            return drivers == null ? null : drivers.poll();
+        }
+    }
+
+    private static void reset(Driver driver) {
+        DriverOptions options = driver.getOptions();
+        options.disableRetry();
+        options.setTimeout(null);
+        try {
+            driver.script("localStorage.clear(); sessionStorage.clear()");
+        } catch (Exception e) {
+            // e.g. no page loaded, storage not accessible
+        }
+        driver.clearCookies();
+        driver.setUrl("about:blank");
+    }
+
+    private static boolean isValid(Driver driver) {
+        if (driver.isTerminated()) {
+            return false;
+        }
+        try {
+            driver.getUrl(); // a round-trip, the browser may have crashed
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private void quitQuietly(Driver driver) {
+        discarded.increment();
+        try {
+            driver.quit();
+        } catch (Exception e) {
+            logger.warn("driver quit failed: {}", e.getMessage());
+        }
+    }
+
+    public void shutdown() {
+        List<Driver> drivers = new ArrayList();
+        synchronized (idle) {
+            idle.values().forEach(drivers::addAll);
+            idle.clear();
+        }
+        for (Driver driver : drivers) {
+            try {
+                driver.quit();
+            } catch (Exception e) {
+                logger.warn("driver quit failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return started.sum() == 0;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> map = new LinkedHashMap();
+        map.put("started", started.sum());
+        map.put("reused", reused.sum());
+        map.put("discarded", discarded.sum());
+        map.put("waits", waitCount.sum());
+        map.put("waitMillis", TimeUnit.NANOSECONDS.toMillis(waitNanos.sum()));
+        map.put("maxWaitMillis", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+        return map;
+    }
+
+}
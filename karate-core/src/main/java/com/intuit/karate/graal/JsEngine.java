@@ -23,12 +23,20 @@
  */
 package com.intuit.karate.graal;
 
+import com.intuit.karate.Constants;
 import com.intuit.karate.FileUtils;
 import java.io.File;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.regex.Pattern;
 import org.graalvm.polyglot.Context;
 import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.Source;
 import org.graalvm.polyglot.Value;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,6 +54,24 @@ public class JsEngine {
     private static final String JS_NASHORN_COMPAT = "js.nashorn-compat";
     private static final String TRUE = "true";
 
+    private static final int MACRO_CACHE_SIZE = 256;
+    private static final int POOL_SIZE = 8;
+    private static final int SOURCE_CACHE_SIZE = 1024;
+
+    // released contexts, per thread so that they share the thread's engine
+    private static final ThreadLocal<Deque<JsEngine>> POOL = ThreadLocal.withInitial(ConcurrentLinkedDeque::new);
+
+    // function text to parsed source, shared across threads and contexts
+    private static final Map<String, Source> SOURCES = Collections.synchronizedMap(new LinkedHashMap<String, Source>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Source> eldest) {
+            return size() > SOURCE_CACHE_SIZE;
+        }
+    });
+
+    // top-level let / const / class cannot be removed from a context
+    private static final Pattern LEXICAL_DECLARATION = Pattern.compile("(^|[;\\n])\\s*(let|const|class)\\s");
+
     private static final ThreadLocal<JsEngine> GLOBAL_JS_ENGINE = new ThreadLocal<JsEngine>() {
         @Override
         protected JsEngine initialValue() {
@@ -53,9 +79,34 @@ public class JsEngine {
         }
     };
 
+    private static volatile Engine sharedEngine;
+
+    /**
+     * if the system property 'karate.js.engine.shared' is true (checked when a
+     * thread first needs a context), all threads use one polyglot engine, so
+     * that parsed (and compiled) sources are shared, else each thread has its
+     * own engine
+     *
+     * @return the engine to be used by the current thread
+     */
+    private static Engine newEngine() {
+        if (!Boolean.getBoolean(Constants.KARATE_JS_ENGINE_SHARED)) {
+            return Engine.newBuilder().build();
+        }
+        if (sharedEngine == null) {
+            synchronized (JsEngine.class) {
+                if (sharedEngine == null) {
+                    logger.debug("creating shared js engine");
+                    sharedEngine = Engine.newBuilder().build();
+                }
+            }
+        }
+        return sharedEngine;
+    }
+
     private static Context createContext(Engine engine) {
         if (engine == null) {
-            engine = Engine.newBuilder().build();
+            engine = newEngine();
         }
         return Context.newBuilder(JS)
                 .allowExperimentalOptions(true)
@@ -81,9 +132,34 @@ public class JsEngine {
         GLOBAL_JS_ENGINE.remove();
     }
 
+    /**
+     * a context that shares the engine of the current thread, re-using one
+     * that was released (and reset) earlier if available
+     *
+     * @return a context that is not in use by any other scenario
+     */
     public static JsEngine local() {
-        Engine engine = GLOBAL_JS_ENGINE.get().context.getEngine();
-        return new JsEngine(createContext(engine));
+        Deque<JsEngine> pool = POOL.get();
+        JsEngine je = pool.pollFirst();
+        if (je != null) {
+            je.reused = true;
+        } else {
+            Engine engine = GLOBAL_JS_ENGINE.get().context.getEngine();
+            je = new JsEngine(createContext(engine));
+            je.pool = pool;
+        }
+        je.released = false;
+        return je;
+    }
+
+    public static Source getSource(CharSequence text) {
+        String key = text.toString();
+        Source source = SOURCES.get(key);
+        if (source == null) {
+            source = Source.create(JS, "(" + key + ")");
+            SOURCES.put(key, source);
+        }
+        return source;
     }
 
     public static JsEngine local(JsEngine parent) {
@@ -100,11 +176,73 @@ public class JsEngine {
     public final Context context;
     public final Value bindings;
 
+    private Deque<JsEngine> pool; // null for the thread global
+    private volatile boolean released;
+    private boolean reused; // leased from the pool, not created
+    private boolean dirty; // has state that reset() cannot clear
+
+    // cached for a macro that cannot be compiled into a function, so it is eval-ed directly
+    static final Value NOT_A_FUNCTION = Value.asValue(Boolean.FALSE);
+
+    // compiled match macro functions, keyed by expression, lru-bounded
+    final Map<String, Value> macros = new LinkedHashMap<String, Value>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Value> eldest) {
+            return size() > MACRO_CACHE_SIZE;
+        }
+    };
+
     private JsEngine(Context context) {
         this.context = context;
         bindings = context.getBindings(JS);
     }
 
+    /**
+     * clears all top-level bindings so that the context can be re-used
+     *
+     * @return false if a binding could not be removed (e.g. a JS 'var') and
+     * the context should be discarded instead
+     */
+    public boolean reset() {
+        if (dirty) {
+            return false;
+        }
+        try {
+            for (String key : new ArrayList<>(bindings.getMemberKeys())) {
+                if (!bindings.removeMember(key)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            logger.trace("context reset failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    public boolean isReused() {
+        return reused;
+    }
+
+    /**
+     * returns this context to the pool of the thread that created it, the
+     * caller has to ensure that no values from this context will be used
+     * after this, e.g. functions that refer to the old global variables
+     *
+     * only if the system property 'karate.js.pool' is true, because reset()
+     * clears only the top-level bindings - changes made to built-in objects
+     * or prototypes (e.g. Array.prototype) would be seen by the next user
+     */
+    public void release() {
+        if (pool == null || released) {
+            return;
+        }
+        released = true;
+        if (Boolean.getBoolean(Constants.KARATE_JS_POOL) && pool.size() < POOL_SIZE && reset()) {
+            pool.offerFirst(this);
+        }
+    }
+
     public JsValue eval(InputStream is) {
         return eval(FileUtils.toString(is));
     }
@@ -118,9 +256,47 @@ public class JsEngine {
     }
 
     public Value evalForValue(String exp) {
+        if (!dirty && pool != null && LEXICAL_DECLARATION.matcher(exp).find()) {
+            dirty = true;
+        }
         return context.eval(JS, exp);
     }
 
+    /**
+     * evaluates a match macro expression that refers to '_' (self) and '$'
+     * (root), the expression is compiled into a function once per context and
+     * then invoked with those two as arguments, which avoids re-parsing and
+     * the binding churn when the same macro is applied to many array elements
+     *
+     * @param exp the expression, e.g. "_ > 0"
+     * @param self the value bound to '_'
+     * @param root the value bound to '$'
+     * @return the result of the evaluation
+     */
+    public JsValue evalMacro(String exp, Object self, Object root) {
+        Value fun = macros.get(exp);
+        if (fun == null) {
+            try {
+                fun = evalForValue("(function(_, $){ return (" + exp + "\n) })");
+            } catch (Exception e) { // not a plain expression, e.g. has a trailing semi-colon
+                logger.trace("macro compile failed, will eval: {}", e.getMessage());
+                fun = NOT_A_FUNCTION;
+            }
+            macros.put(exp, fun);
+        }
+        if (fun == NOT_A_FUNCTION) {
+            put("$", root);
+            put("_", self);
+            try {
+                return eval(exp);
+            } finally {
+                bindings.removeMember("$");
+                bindings.removeMember("_");
+            }
+        }
+        return new JsValue(fun.execute(JsValue.fromJava(self), JsValue.fromJava(root)));
+    }
+
     public void put(String key, Object value) {
         bindings.putMember(key, JsValue.fromJava(value));
     }
@@ -138,7 +314,7 @@ public class JsEngine {
         if (v.isHostObject()) {
             bindings.putMember(key, v);
         } else if (v.canExecute()) {
-            Value fun = evalForValue("(" + v.getSourceLocation().getCharacters() + ")");
+            Value fun = context.eval(getSource(v.getSourceLocation().getCharacters()));
             bindings.putMember(key, fun);
         } else {
             put(key, JsValue.toJava(v));
@@ -146,8 +322,8 @@ public class JsEngine {
     }
     
     public Value attachSource(CharSequence source) {
-        Value value = evalForValue("(" + source + ")");
-        return attach(value);        
+        Value value = context.eval(getSource(source));
+        return attach(value);
     }
 
     public Value attach(Value function) {
@@ -156,7 +332,7 @@ public class JsEngine {
         } catch (Exception e) {
             logger.trace("context switch: {}", e.getMessage());
             CharSequence source = function.getSourceLocation().getCharacters();
-            return evalForValue("(" + source + ")");
+            return context.eval(getSource(source));
         }
     }
 
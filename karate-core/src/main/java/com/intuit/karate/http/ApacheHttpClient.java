@@ -38,25 +38,33 @@ import java.net.SocketAddress;
 import java.net.URI;
 import java.security.KeyStore;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.net.ssl.SSLContext;
 import org.apache.http.Header;
+import org.apache.http.HttpClientConnection;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpException;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpMessage;
 import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.NoHttpResponseException;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.HttpRequestRetryHandler;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.EntityBuilder;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.config.SocketConfig;
 import org.apache.http.conn.ssl.LenientSslConnectionSocketFactory;
@@ -67,9 +75,11 @@ import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.NoConnectionReuseStrategy;
 import org.apache.http.impl.client.LaxRedirectStrategy;
 import org.apache.http.impl.conn.SystemDefaultRoutePlanner;
 import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
 import org.apache.http.ssl.SSLContextBuilder;
 import org.apache.http.ssl.SSLContexts;
 
@@ -79,67 +89,124 @@ import org.apache.http.ssl.SSLContexts;
  */
 public class ApacheHttpClient implements HttpClient, HttpRequestInterceptor {
 
+    static final String CONNECTION_REUSED = "karate.connection.reused";
+
+    private static final HttpRequestExecutor REUSE_AWARE_EXECUTOR = new HttpRequestExecutor() {
+        @Override
+        public HttpResponse execute(org.apache.http.HttpRequest request, HttpClientConnection conn, HttpContext context) throws IOException, HttpException {
+            context.setAttribute(CONNECTION_REUSED, conn.getMetrics().getRequestCount() > 0);
+            return super.execute(request, conn, context);
+        }
+    };
+
+    private static final Set<String> IDEMPOTENT_METHODS = new HashSet(Arrays.asList("GET", "HEAD", "OPTIONS", "TRACE", "PUT", "DELETE"));
+
+    // retry once, only if a kept-alive connection was closed before any response
+    // and the server cannot have acted on it: not fully sent, or idempotent
+    static final HttpRequestRetryHandler STALE_CONNECTION_RETRY = (e, count, context) -> {
+        if (count != 1 || !(e instanceof NoHttpResponseException) || !Boolean.TRUE.equals(context.getAttribute(CONNECTION_REUSED))) {
+            return false;
+        }
+        HttpClientContext hcc = HttpClientContext.adapt(context);
+        if (!hcc.isRequestSent()) {
+            return true;
+        }
+        org.apache.http.HttpRequest request = hcc.getRequest();
+        return request != null && IDEMPOTENT_METHODS.contains(request.getRequestLine().getMethod().toUpperCase());
+    };
+
     private final ScenarioEngine engine;
     private final Logger logger;
     private final HttpLogger httpLogger;
 
+    private final HttpClientPool pool;
+
     private HttpClientBuilder clientBuilder;
+    private boolean pooled; // using the shared connection manager
+    private CloseableHttpClient client;
 
     public ApacheHttpClient(ScenarioEngine engine) {
+        this(engine, engine.runtime.featureRuntime.suite.clientPool);
+    }
+
+    public ApacheHttpClient(ScenarioEngine engine, HttpClientPool pool) {
         this.engine = engine;
+        this.pool = pool;
         logger = engine.logger;
         httpLogger = new HttpLogger(logger);
         configure(engine.getConfig());
     }
 
+    private SSLConnectionSocketFactory createSslSocketFactory(Config config) {
+        // System.setProperty("jsse.enableSNIExtension", "false");
+        String algorithm = config.getSslAlgorithm(); // could be null
+        KeyStore trustStore = engine.getKeyStore(config.getSslTrustStore(), config.getSslTrustStorePassword(), config.getSslTrustStoreType());
+        KeyStore keyStore = engine.getKeyStore(config.getSslKeyStore(), config.getSslKeyStorePassword(), config.getSslKeyStoreType());
+        SSLContext sslContext;
+        try {
+            SSLContextBuilder builder = SSLContexts.custom()
+                    .setProtocol(algorithm); // will default to TLS if null
+            if (trustStore == null && config.isSslTrustAll()) {
+                builder = builder.loadTrustMaterial(new TrustAllStrategy());
+            } else {
+                if (config.isSslTrustAll()) {
+                    builder = builder.loadTrustMaterial(trustStore, new TrustSelfSignedStrategy());
+                } else {
+                    builder = builder.loadTrustMaterial(trustStore, null); // will use system / java default
+                }
+            }
+            if (keyStore != null) {
+                char[] keyPassword = config.getSslKeyStorePassword() == null ? null : config.getSslKeyStorePassword().toCharArray();
+                builder = builder.loadKeyMaterial(keyStore, keyPassword);
+            }
+            sslContext = builder.build();
+            SSLConnectionSocketFactory socketFactory;
+            if (keyStore != null) {
+                socketFactory = new SSLConnectionSocketFactory(sslContext, new NoopHostnameVerifier());
+            } else {
+                socketFactory = new LenientSslConnectionSocketFactory(sslContext, new NoopHostnameVerifier());
+            }
+            return socketFactory;
+        } catch (Exception e) {
+            logger.error("ssl context init failed: {}", e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
     private void configure(Config config) {
+        client = null; // will be re-built on next invoke
         clientBuilder = HttpClientBuilder.create();
         clientBuilder.disableCookieManagement();
-        clientBuilder.disableAutomaticRetries();
         if (!config.isFollowRedirects()) {
             clientBuilder.disableRedirectHandling();
         } else { // support redirect on POST by default
             clientBuilder.setRedirectStrategy(new LaxRedirectStrategy());
         }
         clientBuilder.useSystemProperties();
-        if (config.isSslEnabled()) {
-            // System.setProperty("jsse.enableSNIExtension", "false");
-            String algorithm = config.getSslAlgorithm(); // could be null
-            KeyStore trustStore = engine.getKeyStore(config.getSslTrustStore(), config.getSslTrustStorePassword(), config.getSslTrustStoreType());
-            KeyStore keyStore = engine.getKeyStore(config.getSslKeyStore(), config.getSslKeyStorePassword(), config.getSslKeyStoreType());
-            SSLContext sslContext;
-            try {
-                SSLContextBuilder builder = SSLContexts.custom()
-                        .setProtocol(algorithm); // will default to TLS if null
-                if (trustStore == null && config.isSslTrustAll()) {
-                    builder = builder.loadTrustMaterial(new TrustAllStrategy());
-                } else {
-                    if (config.isSslTrustAll()) {
-                        builder = builder.loadTrustMaterial(trustStore, new TrustSelfSignedStrategy());
-                    } else {
-                        builder = builder.loadTrustMaterial(trustStore, null); // will use system / java default
-                    }
-                }
-                if (keyStore != null) {
-                    char[] keyPassword = config.getSslKeyStorePassword() == null ? null : config.getSslKeyStorePassword().toCharArray();
-                    builder = builder.loadKeyMaterial(keyStore, keyPassword);
-                }
-                sslContext = builder.build();
-                SSLConnectionSocketFactory socketFactory;
-                if (keyStore != null) {
-                    socketFactory = new SSLConnectionSocketFactory(sslContext, new NoopHostnameVerifier());
-                } else {
-                    socketFactory = new LenientSslConnectionSocketFactory(sslContext, new NoopHostnameVerifier());
-                }
-                clientBuilder.setSSLSocketFactory(socketFactory);
-            } catch (Exception e) {
-                logger.error("ssl context init failed: {}", e.getMessage());
-                throw new RuntimeException(e);
+        pooled = pool != null && config.isHttpPoolEnabled();
+        if (pooled) {
+            // socket factories and socket config are owned by the shared connection manager
+            clientBuilder.setConnectionManager(pool.get(config, () -> config.isSslEnabled()
+                    ? createSslSocketFactory(config) : SSLConnectionSocketFactory.getSystemSocketFactory()));
+            clientBuilder.setConnectionManagerShared(true);
+            if (!config.isHttpPoolKeepAlive()) {
+                clientBuilder.setConnectionReuseStrategy(NoConnectionReuseStrategy.INSTANCE);
+            }
+            // a pooled connection may have been closed by the server without notice
+            clientBuilder.setRequestExecutor(REUSE_AWARE_EXECUTOR);
+            clientBuilder.setRetryHandler(STALE_CONNECTION_RETRY);
+        } else {
+            clientBuilder.disableAutomaticRetries();
+            if (config.isSslEnabled()) {
+                clientBuilder.setSSLSocketFactory(createSslSocketFactory(config));
             }
         }
         RequestConfig.Builder configBuilder = RequestConfig.custom()
                 .setConnectTimeout(config.getConnectTimeout())
                 .setSocketTimeout(config.getReadTimeout());
+        if (pooled) { // fail instead of waiting forever when the shared pool is exhausted
+            configBuilder.setConnectionRequestTimeout(config.getConnectTimeout());
+        }
         if (config.getLocalAddress() != null) {
             try {
                 InetAddress localAddress = InetAddress.getByName(config.getLocalAddress());
@@ -225,8 +292,13 @@ public class ApacheHttpClient implements HttpClient, HttpRequestInterceptor {
         if (request.getHeaders() != null) {
             request.getHeaders().forEach((k, vals) -> vals.forEach(v -> requestBuilder.addHeader(k, v)));
         }
-        CloseableHttpClient client = clientBuilder.build();
-        CloseableHttpResponse httpResponse;
+        if (client == null) {
+            client = clientBuilder.build();
+        }
+        if (pooled) {
+            pool.onRequest();
+        }
+        CloseableHttpResponse httpResponse = null;
         byte[] bytes;
         try {
             httpResponse = client.execute(requestBuilder.build());
@@ -244,6 +316,8 @@ public class ApacheHttpClient implements HttpClient, HttpRequestInterceptor {
             } else {
                 throw new RuntimeException(e);
             }
+        } finally {
+            closeQuietly(httpResponse); // releases the connection back to the pool, even if the read failed
         }
         Map<String, List<String>> headers = toHeaders(httpResponse);
         Response response = new Response(httpResponse.getStatusLine().getStatusCode(), headers, bytes);
@@ -251,6 +325,17 @@ public class ApacheHttpClient implements HttpClient, HttpRequestInterceptor {
         return response;
     }
 
+    private void closeQuietly(CloseableHttpResponse httpResponse) {
+        if (httpResponse == null) {
+            return;
+        }
+        try {
+            httpResponse.close();
+        } catch (Exception e) {
+            logger.warn("failed to close http response: {}", e.getMessage());
+        }
+    }
+
     @Override
     public void process(org.apache.http.HttpRequest hr, HttpContext hc) throws HttpException, IOException {
         request.setHeaders(toHeaders(hr));
@@ -0,0 +1,204 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.http;
+
+import com.intuit.karate.core.Config;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * suite-scoped connection managers for the apache http client, keyed by the
+ * ssl, timeout and pool settings of the config in effect, so that connections
+ * (and tls sessions) are re-used across scenarios and threads
+ *
+ * @author pthomas3
+ */
+public class HttpClientPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpClientPool.class);
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong connections = new AtomicLong();
+
+    private class Entry implements HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> {
+
+        final PoolingHttpClientConnectionManager manager;
+        final Eviction eviction;
+
+        Entry(Config config, SSLConnectionSocketFactory sslSocketFactory) {
+            Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+                    .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                    .register("https", sslSocketFactory)
+                    .build();
+            manager = new PoolingHttpClientConnectionManager(registry, this);
+            manager.setMaxTotal(config.getHttpPoolMaxTotal());
+            manager.setDefaultMaxPerRoute(config.getHttpPoolMaxPerRoute());
+            manager.setDefaultSocketConfig(SocketConfig.custom().setSoTimeout(config.getReadTimeout()).build());
+            int idleTimeout = config.getHttpPoolIdleTimeout();
+            eviction = idleTimeout > 0 ? new Eviction(manager, idleTimeout) : null;
+        }
+
+        @Override
+        public ManagedHttpClientConnection create(HttpRoute route, ConnectionConfig cc) {
+            connections.incrementAndGet();
+            return ManagedHttpClientConnectionFactory.INSTANCE.create(route, cc);
+        }
+
+        void close() {
+            if (eviction != null) {
+                eviction.future.cancel(false);
+            }
+            manager.shutdown();
+        }
+
+    }
+
+    // one daemon thread for the whole jvm, many suites are never run() or closed
+    // e.g. Runner.runFeature(), the junit runners and karate-gatling (per call)
+    private static final ScheduledExecutorService EVICTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "karate-http-evictor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // holds the manager weakly, so that the pool of a suite that was never closed
+    // can be garbage collected (which shuts down its connections)
+    private static class Eviction implements Runnable {
+
+        final WeakReference<PoolingHttpClientConnectionManager> ref;
+        final int idleTimeout;
+        volatile ScheduledFuture<?> future;
+
+        Eviction(PoolingHttpClientConnectionManager manager, int idleTimeout) {
+            ref = new WeakReference(manager);
+            this.idleTimeout = idleTimeout;
+            future = EVICTOR.scheduleWithFixedDelay(this, idleTimeout, idleTimeout, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void run() {
+            PoolingHttpClientConnectionManager manager = ref.get();
+            if (manager == null) {
+                if (future != null) {
+                    future.cancel(false);
+                }
+                return;
+            }
+            try {
+                manager.closeExpiredConnections();
+                manager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                logger.warn("idle connection eviction failed: {}", e.getMessage());
+            }
+        }
+
+    }
+
+    public static String toKey(Config config) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(config.isSslEnabled()).append('|')
+                .append(config.getSslAlgorithm()).append('|')
+                .append(config.getSslKeyStore()).append('|')
+                .append(config.getSslKeyStorePassword()).append('|')
+                .append(config.getSslKeyStoreType()).append('|')
+                .append(config.getSslTrustStore()).append('|')
+                .append(config.getSslTrustStorePassword()).append('|')
+                .append(config.getSslTrustStoreType()).append('|')
+                .append(config.isSslTrustAll()).append('|')
+                .append(config.getProxyUri()).append('|')
+                .append(config.getProxyUsername()).append('|')
+                .append(config.getNonProxyHosts()).append('|')
+                .append(config.getConnectTimeout()).append('|')
+                .append(config.getReadTimeout()).append('|')
+                .append(config.getHttpPoolMaxTotal()).append('|')
+                .append(config.getHttpPoolMaxPerRoute()).append('|')
+                .append(config.getHttpPoolIdleTimeout());
+        return sb.toString();
+    }
+
+    public PoolingHttpClientConnectionManager get(Config config, Supplier<SSLConnectionSocketFactory> sslSocketFactory) {
+        String key = toKey(config);
+        return entries.computeIfAbsent(key, k -> {
+            logger.debug("new http connection pool, count: {}", entries.size() + 1);
+            return new Entry(config, sslSocketFactory.get());
+        }).manager;
+    }
+
+    protected void onRequest() {
+        requests.incrementAndGet();
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getConnectionCount() {
+        return connections.get();
+    }
+
+    public long getReuseCount() {
+        return Math.max(0, requests.get() - connections.get());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> map = new LinkedHashMap();
+        map.put("pools", entries.size());
+        map.put("requests", getRequestCount());
+        map.put("connections", getConnectionCount());
+        map.put("reused", getReuseCount());
+        return map;
+    }
+
+    public void close() {
+        if (requests.get() > 0) {
+            logger.info("http connection pool stats: {}", getStats());
+        }
+        entries.values().forEach(Entry::close);
+        entries.clear();
+    }
+
+}
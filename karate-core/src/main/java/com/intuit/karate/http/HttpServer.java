@@ -27,7 +27,11 @@ import com.linecorp.armeria.server.HttpService;
 import com.linecorp.armeria.server.Server;
 import com.linecorp.armeria.server.ServerBuilder;
 import com.linecorp.armeria.server.cors.CorsService;
+import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,12 +46,15 @@ public class HttpServer {
     private final Server server;
     private final CompletableFuture<Void> future;
     private final int port;
+    private final HttpServerHandler handler;
 
     public static class Builder { // TODO
 
         int port;
         boolean corsEnabled;
         ServerHandler handler;
+        int threads;
+        Executor executor;
 
         public Builder port(int value) {
             port = value;
@@ -64,17 +71,39 @@ public class HttpServer {
             return this;
         }
 
+        // bounded pool for handler execution, shut down with the server
+        public Builder threads(int value) {
+            threads = value;
+            return this;
+        }
+
+        // e.g. virtual threads, not shut down by the server
+        public Builder executor(Executor value) {
+            executor = value;
+            return this;
+        }
+
         public HttpServer build() {
             ServerBuilder sb = Server.builder();
             sb.requestTimeoutMillis(0);
             sb.http(port);
-            HttpService service = new HttpServerHandler(handler);
+            HttpServerHandler serverHandler = handlerFor(sb, handler, threads, executor);
+            HttpService service = serverHandler;
             if (corsEnabled) {
                 service = service.decorate(CorsService.builderForAnyOrigin().newDecorator());
             }
             sb.service("prefix:/", service);
-            return new HttpServer(sb);
+            return new HttpServer(sb, serverHandler);
+        }
+
+    }
+
+    // handlers block (js, files, nested calls) so they never run on the event-loop by default
+    public static HttpServerHandler handlerFor(ServerBuilder sb, ServerHandler handler, int threads, Executor executor) {
+        if (threads > 0) {
+            sb.blockingTaskExecutor(Executors.newScheduledThreadPool(threads), true);
         }
+        return new HttpServerHandler(handler, executor);
 
     }
 
@@ -106,7 +135,16 @@ public class HttpServer {
         return handler(new RequestHandler(config));
     }
 
+    public Map<String, Object> getStats() {
+        return handler == null ? Collections.emptyMap() : handler.getStats();
+    }
+
     public HttpServer(ServerBuilder sb) {
+        this(sb, null);
+    }
+
+    public HttpServer(ServerBuilder sb, HttpServerHandler handler) {
+        this.handler = handler;
         server = sb.build();
         future = server.start();
         future.join();
@@ -36,9 +36,15 @@ import com.linecorp.armeria.server.ServiceRequestContext;
 import io.netty.util.AsciiString;
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  *
@@ -47,20 +53,67 @@ import java.util.Set;
 public class HttpServerHandler implements HttpService {
 
     private final ServerHandler handler;
+    private final Executor executor;
+
+    // metrics
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger maxQueued = new AtomicInteger();
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder queueNanos = new LongAdder();
+    private final LongAdder handleNanos = new LongAdder();
+    private final AtomicLong maxHandleNanos = new AtomicLong();
 
     public HttpServerHandler(ServerHandler handler) {
+        this(handler, null);
+    }
+
+    /**
+     * @param handler the (blocking) handler, typically JS evaluation
+     * @param executor where the handler runs, if null the blocking task
+     * executor of the armeria server - use Runnable::run to stay on the
+     * event-loop
+     */
+    public HttpServerHandler(ServerHandler handler, Executor executor) {
         this.handler = handler;
+        this.executor = executor;
     }
 
     @Override
     public HttpResponse serve(ServiceRequestContext ctx, HttpRequest req) throws Exception {
-        return HttpResponse.from(req.aggregate().thenApply(ahr -> {
-            Request request = toRequest(ctx, ahr);
-            Response response = handler.handle(request);
-            return toResponse(ctx, response);
+        Executor target = executor == null ? ctx.blockingTaskExecutor() : ctx.makeContextAware(executor);
+        return HttpResponse.from(req.aggregate().thenCompose(ahr -> {
+            long queuedTime = System.nanoTime();
+            maxQueued.accumulateAndGet(queued.incrementAndGet(), Math::max);
+            return CompletableFuture.supplyAsync(() -> {
+                queued.decrementAndGet();
+                long startTime = System.nanoTime();
+                queueNanos.add(startTime - queuedTime);
+                try {
+                    Request request = toRequest(ctx, ahr);
+                    Response response = handler.handle(request);
+                    return toResponse(ctx, response);
+                } finally {
+                    long elapsed = System.nanoTime() - startTime;
+                    handleNanos.add(elapsed);
+                    maxHandleNanos.accumulateAndGet(elapsed, Math::max);
+                    requestCount.increment();
+                }
+            }, target);
         }));
     }
 
+    public Map<String, Object> getStats() {
+        long count = requestCount.sum();
+        Map<String, Object> map = new LinkedHashMap();
+        map.put("requests", count);
+        map.put("queued", queued.get());
+        map.put("maxQueued", maxQueued.get());
+        map.put("avgQueueMillis", count == 0 ? 0 : queueNanos.sum() / count / 1000000.0);
+        map.put("avgHandleMillis", count == 0 ? 0 : handleNanos.sum() / count / 1000000.0);
+        map.put("maxHandleMillis", maxHandleNanos.get() / 1000000.0);
+        return map;
+    }
+
     private Request toRequest(ServiceRequestContext ctx, AggregatedHttpRequest req) {
         Request request = new Request();
         request.setRequestContext(ctx);
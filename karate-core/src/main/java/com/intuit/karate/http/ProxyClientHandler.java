@@ -31,7 +31,6 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.SimpleChannelInboundHandler;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpClientCodec;
@@ -42,8 +41,6 @@ import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.ssl.SslHandler;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
 import org.slf4j.Logger;
@@ -57,15 +54,15 @@ public class ProxyClientHandler extends SimpleChannelInboundHandler<FullHttpRequ
 
     private static final Logger logger = LoggerFactory.getLogger(ProxyClientHandler.class);
 
+    protected final ProxyConnectionPool pool;
     protected final RequestFilter requestFilter;
     protected final ResponseFilter responseFilter;
-    private final Map<String, ProxyRemoteHandler> REMOTE_HANDLERS = new ConcurrentHashMap();
-    private final Object LOCK = new Object();
     
     private ProxyRemoteHandler remoteHandler;
     protected Channel clientChannel;
 
-    public ProxyClientHandler(RequestFilter requestFilter, ResponseFilter responseFilter) {
+    public ProxyClientHandler(ProxyConnectionPool pool, RequestFilter requestFilter, ResponseFilter responseFilter) {
+        this.pool = pool;
         this.requestFilter = requestFilter;
         this.responseFilter = responseFilter;
     }
@@ -73,25 +70,47 @@ public class ProxyClientHandler extends SimpleChannelInboundHandler<FullHttpRequ
     @Override
     public void channelActive(ChannelHandlerContext ctx) {
         clientChannel = ctx.channel();
+        pool.clientOpened();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) {
+        pool.clientClosed();
+        if (remoteHandler != null && remoteHandler.isBoundTo(this)) {
+            HttpUtils.flushAndClose(remoteHandler.remoteChannel);
+        }
     }
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) throws Exception {
         boolean isConnect = HttpMethod.CONNECT.equals(request.method());
         ProxyContext pc = new ProxyContext(request, isConnect);
-        // if ssl CONNECT, always create new remote pipeline
-        if (remoteHandler == null && !isConnect) {
-            remoteHandler = REMOTE_HANDLERS.get(pc.hostColonPort);
-        }
-        if (remoteHandler != null) {
+        if (remoteHandler != null && remoteHandler.isBoundTo(this)) { // after ssl CONNECT
             remoteHandler.send(request);
             return;
         }
+        // if ssl CONNECT, always create new remote pipeline
+        if (!isConnect) {
+            ProxyRemoteHandler pooled = pool.acquire(pc.hostColonPort);
+            if (pooled != null) {
+                if (logger.isTraceEnabled()) {
+                    logger.trace(">> pooled: {} - {}", pc, pooled);
+                }
+                remoteHandler = pooled;
+                pooled.bind(this);
+                pooled.send(request);
+                return;
+            }
+        }
         if (logger.isTraceEnabled()) {
             logger.trace(">> init: {} - {}", pc, request);
         }
+        // retained until the remote channel is active, see ProxyRemoteHandler
+        ProxyRemoteHandler handler = new ProxyRemoteHandler(pool, pc, this, isConnect ? null : request.retain());
+        remoteHandler = handler;
         Bootstrap b = new Bootstrap();
-        b.group(new NioEventLoopGroup(4));
+        // same event-loop as the client channel, no thread hops and no new threads
+        b.group(ctx.channel().eventLoop());
         b.channel(NioSocketChannel.class);
         b.handler(new ChannelInitializer() {
             @Override
@@ -122,47 +141,29 @@ public class ProxyClientHandler extends SimpleChannelInboundHandler<FullHttpRequ
                             if (logger.isTraceEnabled()) {
                                 logger.trace("** ssl: client handshake done: {}", clientChannel);
                             }
-                            unlockAndProceed();
                         });
-                        lockAndWait();
                     });
                 }
                 p.addLast(new HttpClientCodec());
                 p.addLast(new HttpContentDecompressor());
                 p.addLast(new HttpObjectAggregator(1048576));                 
-                remoteHandler = new ProxyRemoteHandler(pc, ProxyClientHandler.this, isConnect ? null : request);
-                REMOTE_HANDLERS.put(pc.hostColonPort, remoteHandler);
-                p.addLast(remoteHandler);
-                if (logger.isTraceEnabled()) {
-                    logger.trace("updated remote handlers: {}", REMOTE_HANDLERS);
-                }
+                p.addLast(handler);
             }
         });
+        // no more client reads until the remote channel is ready
+        clientChannel.config().setAutoRead(false);
         ChannelFuture cf = b.connect(pc.host, pc.port);
         cf.addListener((ChannelFutureListener) future -> {
+            clientChannel.config().setAutoRead(true);
             if (future.isSuccess()) {
                 if (logger.isTraceEnabled()) {
                     logger.trace("** ready: {} - {}", pc, cf.channel());
                 }
             } else {
+                handler.releaseInitialRequest();
                 HttpUtils.flushAndClose(clientChannel);
             }
         });
-        if (!isConnect) {
-            lockAndWait();
-        }
-    }
-
-    private void lockAndWait() throws Exception {
-        synchronized (LOCK) {
-            LOCK.wait();
-        }
-    }
-
-    protected void unlockAndProceed() {
-        synchronized (LOCK) {
-            LOCK.notify();
-        }
     }
 
     @Override
@@ -173,7 +174,9 @@ public class ProxyClientHandler extends SimpleChannelInboundHandler<FullHttpRequ
             logger.error("closing proxy inbound connection: {}", cause.getMessage());
         }
         ctx.close();
-        HttpUtils.flushAndClose(remoteHandler.remoteChannel);
+        if (remoteHandler != null && remoteHandler.isBoundTo(this)) {
+            HttpUtils.flushAndClose(remoteHandler.remoteChannel);
+        }
     }
 
 }
@@ -0,0 +1,136 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.http;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * idle keep-alive remote (plain http) connections of a proxy per host:port,
+ * and metrics for client and remote channels
+ *
+ * @author pthomas3
+ */
+public class ProxyConnectionPool {
+
+    private static final int MAX_IDLE_PER_HOST = 8;
+
+    private final Map<String, Queue<ProxyRemoteHandler>> idle = new ConcurrentHashMap();
+
+    // metrics
+    private final AtomicInteger clientChannels = new AtomicInteger();
+    private final AtomicInteger remoteChannels = new AtomicInteger();
+    private final LongAdder connectCount = new LongAdder();
+    private final LongAdder reuseCount = new LongAdder();
+    private final LongAdder filterCount = new LongAdder();
+    private final LongAdder filterNanos = new LongAdder();
+    private final AtomicLong maxFilterNanos = new AtomicLong();
+
+    protected ProxyRemoteHandler acquire(String hostColonPort) {
+        Queue<ProxyRemoteHandler> queue = idle.get(hostColonPort);
+        if (queue == null) {
+            return null;
+        }
+        ProxyRemoteHandler handler;
+        while ((handler = queue.poll()) != null) {
+            if (handler.remoteChannel.isActive()) {
+                reuseCount.increment();
+                return handler;
+            }
+        }
+        return null;
+    }
+
+    protected void release(String hostColonPort, ProxyRemoteHandler handler) {
+        if (!handler.remoteChannel.isActive()) {
+            return;
+        }
+        Queue<ProxyRemoteHandler> queue = idle.computeIfAbsent(hostColonPort, k -> new ConcurrentLinkedQueue());
+        if (queue.size() < MAX_IDLE_PER_HOST) {
+            queue.add(handler);
+        } else {
+            handler.remoteChannel.close();
+        }
+    }
+
+    protected void remove(String hostColonPort, ProxyRemoteHandler handler) {
+        Queue<ProxyRemoteHandler> queue = idle.get(hostColonPort);
+        if (queue != null) {
+            queue.remove(handler);
+        }
+    }
+
+    protected void clientOpened() {
+        clientChannels.incrementAndGet();
+    }
+
+    protected void clientClosed() {
+        clientChannels.decrementAndGet();
+    }
+
+    protected void remoteOpened() {
+        connectCount.increment();
+        remoteChannels.incrementAndGet();
+    }
+
+    protected void remoteClosed() {
+        remoteChannels.decrementAndGet();
+    }
+
+    protected void filtered(long nanos) {
+        filterCount.increment();
+        filterNanos.add(nanos);
+        maxFilterNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public void close() {
+        idle.values().forEach(queue -> queue.forEach(handler -> handler.remoteChannel.close()));
+        idle.clear();
+    }
+
+    public Map<String, Object> getStats() {
+        long count = filterCount.sum();
+        int idleCount = 0;
+        for (Queue<ProxyRemoteHandler> queue : idle.values()) {
+            idleCount += queue.size();
+        }
+        Map<String, Object> map = new LinkedHashMap();
+        map.put("clientChannels", clientChannels.get());
+        map.put("remoteChannels", remoteChannels.get());
+        map.put("idleRemoteChannels", idleCount);
+        map.put("remoteConnects", connectCount.sum());
+        map.put("pooledReuses", reuseCount.sum());
+        map.put("filterCalls", count);
+        map.put("avgFilterMillis", count == 0 ? 0 : filterNanos.sum() / count / 1000000.0);
+        map.put("maxFilterMillis", maxFilterNanos.get() / 1000000.0);
+        return map;
+    }
+
+}
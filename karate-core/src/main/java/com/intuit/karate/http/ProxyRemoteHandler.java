@@ -29,6 +29,7 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.util.ReferenceCountUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,23 +42,35 @@ public class ProxyRemoteHandler extends SimpleChannelInboundHandler<FullHttpResp
 
     private static final Logger logger = LoggerFactory.getLogger(ProxyRemoteHandler.class);
 
+    private final ProxyConnectionPool pool;
     private final ProxyContext proxyContext;
-    private final ProxyClientHandler clientHandler;
     private final RequestFilter requestFilter;
     private final ResponseFilter responseFilter;
-    private final Channel clientChannel;
-    private final FullHttpRequest initialRequest;
+
+    // re-bound when a pooled (keep-alive) connection is re-used
+    private volatile ProxyClientHandler clientHandler;
+    private volatile Channel clientChannel;
+    private FullHttpRequest initialRequest;
 
     protected Channel remoteChannel;
-    protected FullHttpRequest currentRequest;
+    protected volatile FullHttpRequest currentRequest;
 
-    public ProxyRemoteHandler(ProxyContext proxyContext, ProxyClientHandler clientHandler, FullHttpRequest initialRequest) {
+    public ProxyRemoteHandler(ProxyConnectionPool pool, ProxyContext proxyContext, ProxyClientHandler clientHandler, FullHttpRequest initialRequest) {
+        this.pool = pool;
         this.proxyContext = proxyContext;
-        this.clientHandler = clientHandler;
-        this.clientChannel = clientHandler.clientChannel;
         this.requestFilter = clientHandler.requestFilter;
         this.responseFilter = clientHandler.responseFilter;
         this.initialRequest = initialRequest;
+        bind(clientHandler);
+    }
+
+    protected final void bind(ProxyClientHandler clientHandler) {
+        this.clientHandler = clientHandler;
+        this.clientChannel = clientHandler.clientChannel;
+    }
+
+    protected boolean isBoundTo(ProxyClientHandler clientHandler) {
+        return this.clientHandler == clientHandler;
     }
 
     @Override
@@ -65,7 +78,19 @@ public class ProxyRemoteHandler extends SimpleChannelInboundHandler<FullHttpResp
         if (logger.isTraceEnabled()) {
             logger.debug("<< {}", response);
         }
-        ProxyResponse filtered = responseFilter == null ? null : responseFilter.apply(proxyContext, currentRequest, response);
+        if (clientChannel == null) { // not expected while idle in the pool
+            ctx.close();
+            return;
+        }
+        ProxyResponse filtered;
+        if (responseFilter == null) {
+            filtered = null;
+        } else {
+            long startTime = System.nanoTime();
+            filtered = responseFilter.apply(proxyContext, currentRequest, response);
+            pool.filtered(System.nanoTime() - startTime);
+        }
+        boolean keepAlive = HttpUtil.isKeepAlive(response);
         if (filtered == null || filtered.response == null) {
             ReferenceCountUtil.retain(response);
         } else {
@@ -74,14 +99,29 @@ public class ProxyRemoteHandler extends SimpleChannelInboundHandler<FullHttpResp
                 logger.debug("<<<< {}", response);
             }            
         }        
+        // the client connection is closed after every response, so the client
+        // must not keep it alive for another request
+        HttpUtil.setKeepAlive(response, false);
         clientChannel.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        if (proxyContext.ssl) {
+            // tunnel is closed along with the client channel
+        } else if (keepAlive) {
+            clientHandler = null;
+            clientChannel = null;
+            currentRequest = null;
+            pool.release(proxyContext.hostColonPort, this);
+        } else {
+            ctx.close();
+        }
     }
 
     protected void send(FullHttpRequest request) {
         currentRequest = request;
         FullHttpRequest filtered;
         if (requestFilter != null) {
+            long startTime = System.nanoTime();
             ProxyResponse pr = requestFilter.apply(proxyContext, request);
+            pool.filtered(System.nanoTime() - startTime);
             if (pr != null && pr.response != null) { // short circuit
                 clientChannel.writeAndFlush(pr.response);
                 return;
@@ -108,12 +148,29 @@ public class ProxyRemoteHandler extends SimpleChannelInboundHandler<FullHttpResp
     @Override
     public void channelActive(ChannelHandlerContext ctx) {
         remoteChannel = ctx.channel();
+        pool.remoteOpened();
         if (initialRequest != null) { // only if not ssl
-            send(initialRequest);
-            clientHandler.unlockAndProceed();
+            try {
+                send(initialRequest);
+            } finally {
+                releaseInitialRequest();
+            }
         }
     }
 
+    protected void releaseInitialRequest() {
+        if (initialRequest != null) {
+            ReferenceCountUtil.release(initialRequest);
+            initialRequest = null;
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) {
+        pool.remoteClosed();
+        pool.remove(proxyContext.hostColonPort, this);
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
         if (cause.getMessage() == null) {
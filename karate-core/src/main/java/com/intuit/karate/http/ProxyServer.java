@@ -33,6 +33,7 @@ import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
 import java.net.InetSocketAddress;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,6 +49,7 @@ public class ProxyServer {
     private final int port;
     private final EventLoopGroup bossGroup;
     private final EventLoopGroup workerGroup;
+    private final ProxyConnectionPool pool;
 
     public int getPort() {
         return port;
@@ -61,8 +63,13 @@ public class ProxyServer {
         }
     }
 
+    public Map<String, Object> getStats() {
+        return pool.getStats();
+    }
+
     public void stop() {
-        logger.info("stop: shutting down");
+        logger.info("stop: shutting down, stats: {}", pool.getStats());
+        pool.close();
         bossGroup.shutdownGracefully();
         workerGroup.shutdownGracefully();
         logger.info("stop: shutdown complete");
@@ -70,7 +77,9 @@ public class ProxyServer {
 
     public ProxyServer(int requestedPort, RequestFilter requestFilter, ResponseFilter responseFilter) {
         bossGroup = new NioEventLoopGroup(1);
-        workerGroup = new NioEventLoopGroup(8);
+        // shared by client and remote channels
+        workerGroup = new NioEventLoopGroup(Runtime.getRuntime().availableProcessors());
+        pool = new ProxyConnectionPool();
         try {
             ServerBootstrap b = new ServerBootstrap();
             b.group(bossGroup, workerGroup)
@@ -81,7 +90,7 @@ public class ProxyServer {
                             ChannelPipeline p = c.pipeline();
                             p.addLast(new HttpServerCodec());
                             p.addLast(new HttpObjectAggregator(1048576));
-                            p.addLast(new ProxyClientHandler(requestFilter, responseFilter));
+                            p.addLast(new ProxyClientHandler(pool, requestFilter, responseFilter));
                         }
                     });
             channel = b.bind(requestedPort).sync().channel();
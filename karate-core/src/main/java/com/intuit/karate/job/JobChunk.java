@@ -39,6 +39,7 @@ public class JobChunk<T> {
     private String executorId;
     private long startTime;
     private String executorDir;
+    private volatile long leaseExpiry;
 
     public JobChunk(String id, T value) {
         this.id = id;
@@ -90,6 +91,14 @@ public class JobChunk<T> {
         this.executorDir = executorDir;
     }
 
+    public long getLeaseExpiry() {
+        return leaseExpiry;
+    }
+
+    public void setLeaseExpiry(long leaseExpiry) {
+        this.leaseExpiry = leaseExpiry;
+    }
+
     @Override
     public String toString() {
         return id;
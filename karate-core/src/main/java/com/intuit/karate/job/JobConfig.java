@@ -48,6 +48,23 @@ public interface JobConfig<T> {
         return -1;
     }
 
+    // upper limit of chunks handed to an executor per 'lease' request
+    default int getBatchSize() {
+        return 4;
+    }
+
+    // un-finished chunks are re-queued if an executor has not sent a heartbeat
+    // (which renews all its leases) for this long
+    default long getLeaseMillis() {
+        return 60000;
+    }
+
+    // executors get a manifest of file hashes instead of a zip of the source
+    // path, and only fetch what is not already in their local cache
+    default boolean isContentAddressed() {
+        return true;
+    }
+
     default String getSourcePath() {
         return "";
     }
@@ -23,6 +23,7 @@
  */
 package com.intuit.karate.job;
 
+import com.intuit.karate.Constants;
 import com.intuit.karate.FileUtils;
 import com.intuit.karate.Http;
 import com.intuit.karate.Json;
@@ -38,10 +39,17 @@ import java.io.FileInputStream;
 import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -52,6 +60,7 @@ public class JobExecutor {
 
     protected final String serverUrl;
     private final Http http;
+    private final Http leaseHttp; // so that a prefetch can overlap an upload
     private final Logger logger;
     protected final LogAppender appender;
     private final String workingDir;
@@ -75,21 +84,31 @@ public class JobExecutor {
         }
         http = Http.to(serverUrl);
         http.configure("lowerCaseResponseHeaders", "true");
+        leaseHttp = Http.to(serverUrl);
+        leaseHttp.configure("lowerCaseResponseHeaders", "true");
         // download ============================================================
-        JobMessage download = invokeServer(new JobMessage("download"));
+        JobMessage download = invokeServer(new JobMessage("download").put("contentAddressed", true));
         logger.info("download response: {}", download);
         jobId = download.getJobId();
         executorId = download.getExecutorId();
         workingDir = FileUtils.getBuildDir() + File.separator + jobId + "_" + executorId;
-        byte[] bytes = download.getBytes();
-        File file = new File(workingDir + ".zip");
-        FileUtils.writeToFile(file, bytes);
         environment = new HashMap(System.getenv());
         try {
-            JobUtils.unzip(file, new File(workingDir));
-            logger.info("download done: {}", workingDir);
+            List<Map<String, Object>> manifest = download.get("manifest");
+            Map<String, Object> syncStats;
+            if (manifest == null) {
+                byte[] bytes = download.getBytes();
+                File file = new File(workingDir + ".zip");
+                FileUtils.writeToFile(file, bytes);
+                JobUtils.unzip(file, new File(workingDir));
+                syncStats = Collections.singletonMap("bytes", bytes.length);
+            } else {
+                syncStats = syncWorkspace(manifest);
+            }
+            logger.info("download done: {}, stats: {}", workingDir, syncStats);
             // init ================================================================
-            JobMessage init = invokeServer(new JobMessage("init").put("log", appender.collect()));
+            JobMessage init = invokeServer(new JobMessage("init")
+                    .put("log", appender.collect()).put("sync", syncStats));
             logger.info("init response: {}", init);
             executorDir = workingDir + File.separator + init.get("executorDir");
             List<JobCommand> startupCommands = init.getCommands("startupCommands");
@@ -104,6 +123,77 @@ public class JobExecutor {
         }
     }
 
+    private static File getCacheDir() {
+        String path = System.getProperty(Constants.KARATE_JOB_CACHE);
+        if (path == null) {
+            path = FileUtils.getBuildDir() + File.separator + "karate-job-cache";
+        }
+        File cacheDir = new File(path);
+        cacheDir.mkdirs();
+        return cacheDir;
+    }
+
+    // blobs are named by content hash and kept across runs, so only what is
+    // missing or has changed since the last run is fetched from the server
+    private Map<String, Object> syncWorkspace(List<Map<String, Object>> manifest) throws Exception {
+        File cacheDir = getCacheDir();
+        Set<String> missing = new HashSet();
+        int hits = 0;
+        for (Map<String, Object> entry : manifest) {
+            String hash = (String) entry.get("hash");
+            if (new File(cacheDir, hash).exists()) {
+                hits++;
+            } else {
+                missing.add(hash);
+            }
+        }
+        long bytes = 0;
+        if (!missing.isEmpty()) {
+            List<String> hashes = new ArrayList(missing);
+            JobMessage res = invokeServer(new JobMessage("blobs").put("hashes", hashes));
+            bytes = res.getBytes().length;
+            File zipFile = new File(workingDir + "_blobs.zip");
+            File tempDir = new File(workingDir + "_blobs");
+            try {
+                FileUtils.writeToFile(zipFile, res.getBytes());
+                JobUtils.unzip(zipFile, tempDir);
+                for (String hash : missing) {
+                    File blob = new File(tempDir, hash);
+                    if (!hash.equals(JobUtils.sha1(blob))) {
+                        throw new RuntimeException("blob content does not match hash: " + hash);
+                    }
+                    // the cache may be on another file system, so copy first and then
+                    // rename within the cache, atomic because other executors may share it
+                    Path temp = Files.createTempFile(cacheDir.toPath(), hash, ".tmp");
+                    try {
+                        Files.copy(blob.toPath(), temp, StandardCopyOption.REPLACE_EXISTING);
+                        Files.move(temp, new File(cacheDir, hash).toPath(),
+                                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    } finally {
+                        Files.deleteIfExists(temp);
+                    }
+                }
+            } finally {
+                zipFile.delete();
+                if (tempDir.exists()) {
+                    FileUtils.deleteDirectory(tempDir);
+                }
+            }
+        }
+        for (Map<String, Object> entry : manifest) {
+            File dest = new File(workingDir + File.separator + entry.get("path"));
+            dest.getParentFile().mkdirs();
+            Files.copy(new File(cacheDir, (String) entry.get("hash")).toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Map<String, Object> stats = new HashMap();
+        stats.put("files", manifest.size());
+        stats.put("cached", hits);
+        stats.put("fetched", missing.size());
+        stats.put("bytes", bytes);
+        stats.put("hitRate", manifest.isEmpty() ? 0 : Math.round(hits * 100.0 / manifest.size()));
+        return stats;
+    }
+
     public static void run(String serverUrl) {
         JobExecutor je = new JobExecutor(serverUrl);
         JobExecutorPulse pulse = new JobExecutorPulse(je);
@@ -149,37 +239,70 @@ public class JobExecutor {
     }
 
     private void loopNext() {
+        File executorDirFile = new File(executorDir);
+        executorDirFile.mkdirs();
+        String executorDirPath = executorDirFile.getAbsolutePath();
+        CompletableFuture<JobMessage> nextLease = CompletableFuture.completedFuture(lease(executorDirPath));
         do {
-            File executorDirFile = new File(executorDir);
-            executorDirFile.mkdirs();
-            JobMessage req = new JobMessage("next").put("executorDir", executorDirFile.getAbsolutePath());
-            JobMessage res = invokeServer(req);
+            JobMessage res = nextLease.join();
             if (res.is("stop")) {
                 logger.info("stop received, shutting down");
                 break;
             }
-            chunkId.set(res.getChunkId());
-            executeCommands(res.getCommands("preCommands"), environment);
-            executeCommands(res.getCommands("mainCommands"), environment);
-            stopBackgroundCommands();
-            executeCommands(res.getCommands("postCommands"), environment);
-            String log = appender.collect();
-            File logFile = new File(executorDir + File.separator + "karate.log");
-            FileUtils.writeToFile(logFile, log);
-            String zipBase = executorDir + "_" + chunkId.get();
-            File toZip = new File(zipBase);
-            if (!executorDirFile.renameTo(toZip)) {
-                logger.warn("failed to rename old executor dir: {}", executorDirFile);
+            if (res.is("wait")) {
+                Number retryMillis = res.get("retryMillis");
+                logger.debug("no chunks available, will retry after {} ms", retryMillis);
+                sleep(retryMillis.longValue());
+                nextLease = CompletableFuture.completedFuture(lease(executorDirPath));
+                continue;
+            }
+            List<Map<String, Object>> chunks = res.get("chunks");
+            for (int i = 0; i < chunks.size(); i++) {
+                if (i == chunks.size() - 1) { // prefetch the next batch while the last one runs
+                    nextLease = CompletableFuture.supplyAsync(() -> lease(executorDirPath));
+                }
+                Map<String, Object> chunk = chunks.get(i);
+                JobMessage next = new JobMessage("next");
+                next.setBody(chunk);
+                next.setChunkId((String) chunk.get("chunkId"));
+                executeChunk(next);
             }
-            File toUpload = new File(zipBase + ".zip");
-            JobUtils.zip(toZip, toUpload);
-            byte[] upload = toBytes(toUpload);
-            req = new JobMessage("upload");
-            req.setBytes(upload);
-            invokeServer(req);
         } while (true);
     }
 
+    private JobMessage lease(String executorDirPath) {
+        JobMessage req = new JobMessage("lease").put("executorDir", executorDirPath);
+        req.setJobId(jobId);
+        req.setExecutorId(executorId);
+        return invokeServer(leaseHttp, req);
+    }
+
+    private void executeChunk(JobMessage res) {
+        long startTime = System.currentTimeMillis();
+        chunkId.set(res.getChunkId());
+        new File(executorDir).mkdirs();
+        executeCommands(res.getCommands("preCommands"), environment);
+        executeCommands(res.getCommands("mainCommands"), environment);
+        stopBackgroundCommands();
+        executeCommands(res.getCommands("postCommands"), environment);
+        String log = appender.collect();
+        File logFile = new File(executorDir + File.separator + "karate.log");
+        FileUtils.writeToFile(logFile, log);
+        File toUpload = JobUtils.zipChunk(new File(executorDir), chunkId.get(), startTime);
+        byte[] upload = toBytes(toUpload);
+        JobMessage req = new JobMessage("upload");
+        req.setBytes(upload);
+        invokeServer(req);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private void shutdown() {
         stopBackgroundCommands();
         executeCommands(shutdownCommands, environment);
@@ -36,11 +36,14 @@ import java.io.FileInputStream;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -54,6 +57,10 @@ public class JobManager<T> implements ServerHandler {
 
     public static final String KARATE_JOB_HEADER = "karate-job";
 
+    // how long an executor should wait when the queue is empty but chunks
+    // leased by others may still be re-queued
+    public static final int LEASE_RETRY_MILLIS = 1000;
+
     public final JobConfig<T> config;
     private final String basePath;
     private final File ZIP_FILE;
@@ -62,17 +69,27 @@ public class JobManager<T> implements ServerHandler {
     public final HttpServer server;
 
     private final Map<String, JobChunk<T>> chunks = new HashMap();
+    private final Map<String, JobChunk<T>> leased = new HashMap(); // guarded by chunks
+    private final Map<String, Long> lastUploads = new ConcurrentHashMap();
     private final LinkedBlockingQueue<JobChunk> queue;
     private final AtomicInteger chunkCounter = new AtomicInteger();
     private final AtomicInteger executorCounter = new AtomicInteger(1);
+    private final LongAdder bytesSent = new LongAdder();
+
+    private final Map<String, File> blobs = new HashMap();
+    private final List<Map<String, Object>> manifest = new ArrayList();
+    private boolean zipFileReady;
 
     public JobManager(JobConfig config) {
         this.config = config;
         jobId = System.currentTimeMillis() + "";
         basePath = FileUtils.getBuildDir() + File.separator + jobId;
         ZIP_FILE = new File(basePath + ".zip");
-        JobUtils.zip(new File(config.getSourcePath()), ZIP_FILE);
-        logger.info("created zip archive: {}", ZIP_FILE);
+        if (config.isContentAddressed()) {
+            initManifest();
+        } else {
+            initZipFile();
+        }
         server = HttpServer.handler(this).port(config.getPort()).build();
         jobUrl = "http://" + config.getHost() + ":" + server.getPort();
         queue = new LinkedBlockingQueue();
@@ -100,6 +117,7 @@ public class JobManager<T> implements ServerHandler {
         }
         CompletableFuture[] futuresArray = futures.toArray(new CompletableFuture[futures.size()]);
         CompletableFuture.allOf(futuresArray).join();
+        logger.info("workspace bytes sent to executors: {}", bytesSent.sum());
         config.onStop();
     }
 
@@ -147,14 +165,19 @@ public class JobManager<T> implements ServerHandler {
             json.set("chunkId", res.getChunkId());
         }
         response.setHeader(KARATE_JOB_HEADER, json.toString());
+        byte[] bytes = null;
         if (res.getBytes() != null) {
-            response.setBody(res.getBytes());
+            bytes = res.getBytes();
+            response.setBody(bytes);
             response.setContentType(ResourceType.BINARY.contentType);
         } else if (res.getBody() != null) {
-            byte[] bytes = JsonUtils.toJsonBytes(res.getBody());
+            bytes = JsonUtils.toJsonBytes(res.getBody());
             response.setBody(bytes);
             response.setContentType(ResourceType.JSON.contentType);
         }
+        if (bytes != null && (res.is("download") || res.is("blobs"))) {
+            bytesSent.add(bytes.length);
+        }
         return response;
     }
 
@@ -182,14 +205,26 @@ public class JobManager<T> implements ServerHandler {
                 return new JobMessage("error");
             case "heartbeat":
                 logger.info("hearbeat: {}", jm);
+                renewLeases(jm.getExecutorId());
                 return new JobMessage("heartbeat");
             case "download":
                 logger.info("download: {}", jm);
                 JobMessage download = new JobMessage("download");
-                download.setBytes(getDownload());
+                if (config.isContentAddressed() && Boolean.TRUE.equals(jm.get("contentAddressed"))) {
+                    download.put("manifest", manifest);
+                } else {
+                    download.setBytes(getDownload());
+                }
                 int executorId = executorCounter.getAndIncrement();
                 download.setExecutorId(executorId + "");
                 return download;
+            case "blobs":
+                List<String> hashes = jm.get("hashes");
+                JobMessage blobsResponse = new JobMessage("blobs");
+                byte[] blobBytes = JobUtils.zipBlobs(hashes, blobs);
+                blobsResponse.setBytes(blobBytes);
+                logger.info("blobs: {}, count: {}, bytes: {}", jm, hashes.size(), blobBytes.length);
+                return blobsResponse;
             case "init":
                 logger.info("init: {}", jm);
                 JobMessage init = new JobMessage("init");
@@ -205,20 +240,28 @@ public class JobManager<T> implements ServerHandler {
                     logger.info("no more chunks, server responding with 'stop' message");
                     return new JobMessage("stop");
                 }
-                jc.setStartTime(System.currentTimeMillis());
-                jc.setJobId(jobId);
-                jc.setExecutorId(jm.getExecutorId());
-                String executorDir = jm.get("executorDir");
-                jc.setExecutorDir(executorDir);
-                JobMessage next = new JobMessage("next")
-                        .put("preCommands", config.getPreCommands(jc))
-                        .put("mainCommands", config.getMainCommands(jc))
-                        .put("postCommands", config.getPostCommands(jc));
-                next.setChunkId(jc.getId());
-                return next;
+                assign(jc, jm.getExecutorId(), jm.get("executorDir"));
+                return toNextMessage(jc);
+            case "lease":
+                logger.info("lease: {}", jm);
+                List<JobChunk<T>> batch = lease(jm.getExecutorId(), jm.get("executorDir"));
+                if (batch.isEmpty()) {
+                    if (hasLeases()) {
+                        return new JobMessage("wait").put("retryMillis", LEASE_RETRY_MILLIS);
+                    }
+                    logger.info("no more chunks, server responding with 'stop' message");
+                    return new JobMessage("stop");
+                }
+                List<Map<String, Object>> list = new ArrayList(batch.size());
+                for (JobChunk<T> chunk : batch) {
+                    list.add(toNextMessage(chunk).put("chunkId", chunk.getId()).getBody());
+                }
+                JobMessage lease = new JobMessage("lease").put("chunks", list);
+                lease.setChunkId(batch.get(0).getId());
+                return lease;
             case "upload":
                 logger.info("upload: {}", jm);
-                handleUpload(jm.getBytes(), jm.getChunkId());
+                handleUpload(jm.getBytes(), jm.getChunkId(), jm.getExecutorId());
                 JobMessage upload = new JobMessage("upload");
                 upload.setChunkId(jm.getChunkId());
                 return upload;
@@ -228,7 +271,113 @@ public class JobManager<T> implements ServerHandler {
         }
     }
 
+    private void assign(JobChunk<T> jc, String executorId, String executorDir) {
+        jc.setStartTime(System.currentTimeMillis());
+        jc.setJobId(jobId);
+        jc.setExecutorId(executorId);
+        jc.setExecutorDir(executorDir);
+    }
+
+    private JobMessage toNextMessage(JobChunk<T> jc) {
+        JobMessage next = new JobMessage("next")
+                .put("preCommands", config.getPreCommands(jc))
+                .put("mainCommands", config.getMainCommands(jc))
+                .put("postCommands", config.getPostCommands(jc));
+        next.setChunkId(jc.getId());
+        return next;
+    }
+
+    private List<JobChunk<T>> lease(String executorId, String executorDir) {
+        requeueExpiredLeases();
+        // when the queue is short, leave some chunks for the other executors
+        int executorCount = Math.max(1, config.getExecutorCount());
+        int batchSize = Math.max(1, Math.min(config.getBatchSize(), queue.size() / executorCount));
+        long leaseExpiry = System.currentTimeMillis() + config.getLeaseMillis();
+        List<JobChunk<T>> batch = new ArrayList(batchSize);
+        while (batch.size() < batchSize) {
+            JobChunk<T> jc = queue.poll();
+            if (jc == null) {
+                break;
+            }
+            if (jc.getFuture().isDone()) { // re-queued, but the late upload made it
+                continue;
+            }
+            assign(jc, executorId, executorDir);
+            jc.setLeaseExpiry(leaseExpiry);
+            batch.add(jc);
+        }
+        synchronized (chunks) {
+            batch.forEach(jc -> leased.put(jc.getId(), jc));
+        }
+        return batch;
+    }
+
+    private void requeueExpiredLeases() {
+        long now = System.currentTimeMillis();
+        List<JobChunk<T>> expired = new ArrayList();
+        synchronized (chunks) {
+            Iterator<JobChunk<T>> iterator = leased.values().iterator();
+            while (iterator.hasNext()) {
+                JobChunk<T> jc = iterator.next();
+                if (jc.getFuture().isDone()) {
+                    iterator.remove();
+                } else if (jc.getLeaseExpiry() < now) {
+                    iterator.remove();
+                    expired.add(jc);
+                }
+            }
+        }
+        for (JobChunk<T> jc : expired) {
+            logger.warn("lease expired for chunk: {} on executor: {}, re-queued", jc, jc.getExecutorId());
+            queue.add(jc);
+        }
+    }
+
+    private boolean hasLeases() {
+        synchronized (chunks) {
+            leased.values().removeIf(jc -> jc.getFuture().isDone());
+            return !leased.isEmpty();
+        }
+    }
+
+    private void renewLeases(String executorId) {
+        long leaseExpiry = System.currentTimeMillis() + config.getLeaseMillis();
+        synchronized (chunks) {
+            for (JobChunk<T> jc : leased.values()) {
+                if (executorId != null && executorId.equals(jc.getExecutorId())) {
+                    jc.setLeaseExpiry(leaseExpiry);
+                }
+            }
+        }
+    }
+
+    private void initManifest() {
+        Map<String, File> files = JobUtils.listFiles(new File(config.getSourcePath()));
+        long totalSize = 0;
+        for (Map.Entry<String, File> entry : files.entrySet()) {
+            File file = entry.getValue();
+            String hash = JobUtils.sha1(file);
+            blobs.put(hash, file);
+            Map<String, Object> map = new HashMap(3);
+            map.put("path", entry.getKey());
+            map.put("hash", hash);
+            map.put("size", file.length());
+            manifest.add(map);
+            totalSize += file.length();
+        }
+        logger.info("created manifest, files: {}, unique: {}, bytes: {}", files.size(), blobs.size(), totalSize);
+    }
+
+    private synchronized void initZipFile() {
+        if (!zipFileReady) {
+            JobUtils.zip(new File(config.getSourcePath()), ZIP_FILE);
+            logger.info("created zip archive: {}", ZIP_FILE);
+            zipFileReady = true;
+        }
+    }
+
     private byte[] getDownload() {
+        initZipFile(); // lazy if content-addressed, for executors that ask for the zip
         try {
             InputStream is = new FileInputStream(ZIP_FILE);
             return FileUtils.toBytes(is);
@@ -237,21 +386,39 @@ public class JobManager<T> implements ServerHandler {
         }
     }
 
-    private void handleUpload(byte[] bytes, String chunkId) {
+    private void handleUpload(byte[] bytes, String chunkId, String executorId) {
         JobChunk<T> jc;
+        boolean wasLeased;
         synchronized (chunks) {
             jc = chunks.get(chunkId);
+            wasLeased = leased.remove(chunkId) != null;
+        }
+        if (executorId == null) {
+            executorId = jc.getExecutorId();
         }
-        String chunkBasePath = basePath + File.separator + jc.getExecutorId() + File.separator + chunkId;
-        File upload = new File(chunkBasePath);
-        File zipFile = new File(chunkBasePath + ".zip");
-        if (bytes != null) {
-            FileUtils.writeToFile(zipFile, bytes);
-            JobUtils.unzip(zipFile, upload);
+        long now = System.currentTimeMillis();
+        Long previousUpload = lastUploads.put(executorId, now);
+        synchronized (jc) {
+            CompletableFuture<T> future = jc.getFuture();
+            if (future.isDone()) { // lease had expired and another executor got there first
+                logger.warn("ignoring duplicate upload of chunk: {} from executor: {}", chunkId, executorId);
+                return;
+            }
+            // a leased batch runs one after the other, so a chunk actually
+            // started when the previous one was uploaded
+            if (wasLeased && previousUpload != null && previousUpload > jc.getStartTime()) {
+                jc.setStartTime(previousUpload);
+            }
+            String chunkBasePath = basePath + File.separator + executorId + File.separator + chunkId;
+            File upload = new File(chunkBasePath);
+            File zipFile = new File(chunkBasePath + ".zip");
+            if (bytes != null) {
+                FileUtils.writeToFile(zipFile, bytes);
+                JobUtils.unzip(zipFile, upload);
+            }
+            T value = config.handleUpload(jc, upload);
+            future.complete(value);
         }
-        T value = config.handleUpload(jc, upload);
-        CompletableFuture<T> future = jc.getFuture();
-        future.complete(value);
         logger.debug("completed: {}", chunkId);
     }
 
@@ -152,7 +152,7 @@ public class JobMessage {
             sb.append(", body: ");
             body.forEach((k, v) -> {
                 sb.append("[").append(k).append(": ");
-                if ("log".equals(k)) {
+                if ("log".equals(k) || "manifest".equals(k)) {
                     sb.append("...");
                 } else if (v instanceof String) {
                     String s = (String) v;
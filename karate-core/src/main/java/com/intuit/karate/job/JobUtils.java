@@ -23,10 +23,17 @@
  */
 package com.intuit.karate.job;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.function.Predicate;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -39,11 +46,15 @@ import java.util.zip.ZipOutputStream;
 public class JobUtils {
 
     public static void zip(File src, File dest) {
+        zip(src, dest, f -> true);
+    }
+
+    public static void zip(File src, File dest, Predicate<File> filter) {
         try {
             src = src.getCanonicalFile();
             FileOutputStream fos = new FileOutputStream(dest);
             ZipOutputStream zipOut = new ZipOutputStream(fos);
-            zip(src, "", zipOut, 0);
+            zip(src, "", zipOut, 0, filter);
             zipOut.close();
             fos.close();
         } catch (IOException e) {
@@ -51,7 +62,22 @@ public class JobUtils {
         }
     }
 
-    private static void zip(File fileToZip, String fileName, ZipOutputStream zipOut, int level) throws IOException {
+    // the executor dir is moved aside per chunk, so that the upload holds only
+    // what this chunk wrote, if the move fails (e.g. a file is still locked)
+    // fall back to the files written at or after the chunk started
+    public static File zipChunk(File executorDir, String chunkId, long startTime) {
+        File chunkDir = new File(executorDir.getPath() + "_" + chunkId);
+        File dest = new File(chunkDir.getPath() + ".zip");
+        if (executorDir.renameTo(chunkDir)) {
+            executorDir.mkdirs();
+            zip(chunkDir, dest);
+        } else {
+            zip(executorDir, dest, f -> f.lastModified() >= startTime);
+        }
+        return dest;
+    }
+
+    private static void zip(File fileToZip, String fileName, ZipOutputStream zipOut, int level, Predicate<File> filter) throws IOException {
         if (fileToZip.isHidden()) {
             return;
         }
@@ -62,17 +88,19 @@ public class JobUtils {
             File[] children = fileToZip.listFiles();
             for (File childFile : children) {
                 String childFileName = childFile.getName();
-                // TODO improve ?
-                if (childFileName.equals("target") || childFileName.equals("build")) {
+                if (isBuildDir(childFileName)) {
                     continue;
                 }
                 if (level != 0) {
                     childFileName = entryName + "/" + childFileName;
                 }
-                zip(childFile, childFileName, zipOut, level + 1);
+                zip(childFile, childFileName, zipOut, level + 1, filter);
             }
             return;
         }
+        if (!filter.test(fileToZip)) {
+            return;
+        }
         ZipEntry zipEntry = new ZipEntry(fileName);
         zipOut.putNextEntry(zipEntry);
         FileInputStream fis = new FileInputStream(fileToZip);
@@ -84,6 +112,82 @@ public class JobUtils {
         fis.close();
     }
 
+    // TODO improve ?
+    private static boolean isBuildDir(String name) {
+        return name.equals("target") || name.equals("build");
+    }
+
+    // the same files that zip() would include, keyed by path relative to src
+    public static Map<String, File> listFiles(File src) {
+        Map<String, File> files = new LinkedHashMap();
+        try {
+            listFiles(src.getCanonicalFile(), "", files);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return files;
+    }
+
+    private static void listFiles(File file, String path, Map<String, File> files) {
+        if (file.isHidden()) {
+            return;
+        }
+        if (!file.isDirectory()) {
+            files.put(path, file);
+            return;
+        }
+        File[] children = file.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            String name = child.getName();
+            if (isBuildDir(name)) {
+                continue;
+            }
+            listFiles(child, path.isEmpty() ? name : path + "/" + name, files);
+        }
+    }
+
+    public static String sha1(File file) {
+        try (InputStream is = new FileInputStream(file)) {
+            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = is.read(buffer)) > 0) {
+                md.update(buffer, 0, length);
+            }
+            StringBuilder sb = new StringBuilder();
+            for (byte b : md.digest()) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // zip entries are named by the hash of the content
+    public static byte[] zipBlobs(Collection<String> hashes, Map<String, File> blobs) {
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ZipOutputStream zipOut = new ZipOutputStream(baos);
+            for (String hash : hashes) {
+                File file = blobs.get(hash);
+                if (file == null) {
+                    throw new RuntimeException("unknown blob: " + hash);
+                }
+                zipOut.putNextEntry(new ZipEntry(hash));
+                Files.copy(file.toPath(), zipOut);
+                zipOut.closeEntry();
+            }
+            zipOut.close();
+            return baos.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public static void unzip(File src, File dest) {
         try {
             byte[] buffer = new byte[1024];
@@ -53,8 +53,8 @@ public interface Report {
 
     default File render(String reportDir) {
         JsEngine je = getJsEngine();
-        KarateTemplateEngine engine = TemplateUtils.forResourcePath(je, getResourceRoot());
-        String html = engine.process(getTemplate());
+        KarateTemplateEngine engine = TemplateUtils.forResourceRoot(getResourceRoot());
+        String html = engine.process(getTemplate(), je);
         if (reportDir == null) {
             reportDir = getReportDir();
         }
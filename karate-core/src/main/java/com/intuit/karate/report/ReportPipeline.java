@@ -0,0 +1,151 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.report;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * writes reports on a small thread pool so that this overlaps with test
+ * execution, when the queue is full the submitting thread writes the report
+ * itself (back-pressure), zero threads means everything is synchronous
+ *
+ * @author pthomas3
+ */
+public class ReportPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportPipeline.class);
+
+    public static final int DEFAULT_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    private final ThreadPoolExecutor executor;
+    private final Object lock = new Object();
+    private final Map<String, Timing> timings = new ConcurrentHashMap();
+    private int pending;
+
+    private static class Timing {
+
+        final LongAdder count = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+
+    }
+
+    public ReportPipeline(int threads) {
+        if (threads < 1) {
+            executor = null;
+        } else {
+            AtomicInteger counter = new AtomicInteger();
+            executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue(threads * 8), r -> {
+                        Thread thread = new Thread(r, "karate-reports-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, (r, e) -> r.run()); // unlike CallerRunsPolicy, also runs after shutdown
+        }
+    }
+
+    public void submit(Runnable task) {
+        if (executor == null) {
+            task.run();
+            return;
+        }
+        // a rejected task is run by the caller, so pending always goes back down
+        synchronized (lock) {
+            pending++;
+        }
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                logger.error("report task failed: {}", t + "");
+            } finally {
+                synchronized (lock) {
+                    if (--pending == 0) {
+                        lock.notifyAll();
+                    }
+                }
+            }
+        });
+    }
+
+    // blocks until every report submitted so far has been written
+    public void flush() {
+        synchronized (lock) {
+            while (pending > 0) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    public void shutdown() {
+        flush();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    public <T> T time(String format, Supplier<T> supplier) {
+        long startTime = System.nanoTime();
+        try {
+            return supplier.get();
+        } finally {
+            Timing timing = timings.computeIfAbsent(format, k -> new Timing());
+            timing.count.increment();
+            timing.nanos.add(System.nanoTime() - startTime);
+        }
+    }
+
+    public boolean isEmpty() {
+        return timings.isEmpty();
+    }
+
+    public Map<String, Object> getTimings() {
+        Map<String, Object> map = new LinkedHashMap(timings.size());
+        timings.forEach((k, v) -> {
+            long count = v.count.sum();
+            double totalMillis = v.nanos.sum() / 1000000d;
+            Map<String, Object> stats = new LinkedHashMap(3);
+            stats.put("count", count);
+            stats.put("totalMillis", Math.round(totalMillis));
+            stats.put("averageMillis", count == 0 ? 0 : Math.round(totalMillis * 100 / count) / 100d);
+            map.put(k, stats);
+        });
+        return map;
+    }
+
+}
@@ -42,6 +42,8 @@ import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
@@ -78,19 +80,28 @@ public class ReportUtils {
         FileUtils.writeToFile(new File(destPath), bytes);
     }
 
+    private static final Set<String> STATIC_RESOURCES_DIRS = ConcurrentHashMap.newKeySet();
+
     public static void initStaticResources(String targetDir) {
         String resPath = targetDir + File.separator + "res" + File.separator;
         File resFile = new File(resPath);
-        if (resFile.exists()) {
+        String key = resFile.getAbsolutePath();
+        if (STATIC_RESOURCES_DIRS.contains(key) && resFile.exists()) {
             return;
         }
-        for (String path : STATIC_RESOURCES) {
-            int pos = path.lastIndexOf('/');
-            if (pos == -1) {
-                copyToFile(path, resFile.getParent() + File.separator + path);
-            } else {
-                copyToFile(path, resPath + path.substring(pos + 1));
+        // reports render in parallel, don't let one see a half-copied dir
+        synchronized (STATIC_RESOURCES_DIRS) {
+            if (!resFile.exists()) {
+                for (String path : STATIC_RESOURCES) {
+                    int pos = path.lastIndexOf('/');
+                    if (pos == -1) {
+                        copyToFile(path, resFile.getParent() + File.separator + path);
+                    } else {
+                        copyToFile(path, resPath + path.substring(pos + 1));
+                    }
+                }
             }
+            STATIC_RESOURCES_DIRS.add(key);
         }
     }
 
@@ -110,7 +121,7 @@ public class ReportUtils {
             fileName = result.getFeature().getKarateJsonFileName();
         }
         File file = new File(targetDir + File.separator + fileName);
-        FileUtils.writeToFile(file, JsonUtils.toJson(result.toKarateJson()));
+        JsonUtils.toJson(result.toKarateJson(), file);
         return file;
     }
 
@@ -119,8 +130,7 @@ public class ReportUtils {
             fileName = result.getFeature().getPackageQualifiedName() + ".json";
         }
         File file = new File(targetDir + File.separator + fileName);
-        String json = JsonUtils.toJson(Collections.singletonList(result.toCucumberJson()));
-        FileUtils.writeToFile(file, json);
+        JsonUtils.toJson(Collections.singletonList(result.toCucumberJson()), file);
         return file;
     }
 
@@ -25,6 +25,7 @@ package com.intuit.karate.resource;
 
 import com.intuit.karate.FileUtils;
 import com.intuit.karate.core.Feature;
+import com.intuit.karate.core.FeatureCache;
 import io.github.classgraph.ClassGraph;
 import io.github.classgraph.ResourceList;
 import io.github.classgraph.ScanResult;
@@ -62,6 +63,10 @@ public class ResourceUtils {
     }
 
     public static List<Feature> findFeatureFiles(File workingDir, List<String> paths) {
+        return findFeatureFiles(workingDir, paths, null);
+    }
+
+    public static List<Feature> findFeatureFiles(File workingDir, List<String> paths, FeatureCache cache) {
         List<Feature> features = new ArrayList();
         if (paths == null || paths.isEmpty()) {
             return features;
@@ -78,7 +83,7 @@ public class ResourceUtils {
             }
             if (path.endsWith(".feature")) {
                 Resource resource = getResource(workingDir, path);
-                Feature feature = Feature.read(resource);
+                Feature feature = FeatureCache.read(cache, resource);
                 feature.setCallLine(line);
                 features.add(feature);
                 return features;
@@ -86,7 +91,7 @@ public class ResourceUtils {
         }
         Collection<Resource> resources = findResourcesByExtension(workingDir, "feature", paths);
         for (Resource resource : resources) {
-            features.add(Feature.read(resource));
+            features.add(FeatureCache.read(cache, resource));
         }
         return features;
     }
@@ -52,6 +52,8 @@ public class KarateTemplateEngine {
 
     private static final Logger logger = LoggerFactory.getLogger(KarateTemplateEngine.class);
 
+    private static final ThreadLocal<JsEngine> BOUND_ENGINE = new ThreadLocal();
+
     private final StandardEngineContextFactory standardFactory;
     private final TemplateEngine wrapped;
 
@@ -60,7 +62,7 @@ public class KarateTemplateEngine {
         wrapped = new TemplateEngine();
         wrapped.setEngineContextFactory((IEngineConfiguration ec, TemplateData data, Map<String, Object> attrs, IContext context) -> {
             IEngineContext engineContext = standardFactory.createEngineContext(ec, data, attrs, context);
-            return TemplateEngineContext.initThreadLocal(engineContext, je == null ? RequestCycle.get().getEngine() : je);
+            return TemplateEngineContext.initThreadLocal(engineContext, je == null ? boundEngine() : je);
         });
         // the next line is a set which clears and replaces all existing / default
         wrapped.setDialect(new KarateStandardDialect());
@@ -69,6 +71,11 @@ public class KarateTemplateEngine {
         }
     }
 
+    private static JsEngine boundEngine() {
+        JsEngine bound = BOUND_ENGINE.get();
+        return bound == null ? RequestCycle.get().getEngine() : bound;
+    }
+
     public void setTemplateResolver(ITemplateResolver templateResolver) {
         wrapped.setTemplateResolver(templateResolver);
     }
@@ -77,6 +84,16 @@ public class KarateTemplateEngine {
         return process(template, TemplateContext.LOCALE_US);
     }
 
+    // for engines shared across threads, the js engine is bound only for this call
+    public String process(String template, JsEngine je) {
+        BOUND_ENGINE.set(je);
+        try {
+            return process(template);
+        } finally {
+            BOUND_ENGINE.remove();
+        }
+    }
+
     public String process(String template, IContext context) {
         TemplateSpec templateSpec = new TemplateSpec(template, TemplateMode.HTML);
         Writer stringWriter = new FastStringWriter(100);
@@ -26,6 +26,8 @@ package com.intuit.karate.template;
 import com.intuit.karate.graal.JsEngine;
 import com.intuit.karate.http.ServerConfig;
 import com.intuit.karate.resource.ResourceResolver;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.model.IModel;
 import org.thymeleaf.model.IModelFactory;
@@ -41,6 +43,8 @@ public class TemplateUtils {
         // only static methods
     }
 
+    private static final Map<String, KarateTemplateEngine> RESOURCE_ENGINES = new ConcurrentHashMap();
+
     private static final String HTMX_SCRIPT_TAG = "<script src=\"https://unpkg.com/htmx.org@1.2.0\"></script>";
 
     public static IModel generateHeadScriptTag(ITemplateContext ctx) {
@@ -76,4 +80,9 @@ public class TemplateUtils {
         return engine;
     }
 
+    // thread-safe, parsed templates are cached per root, use process(template, je)
+    public static KarateTemplateEngine forResourceRoot(String root) {
+        return RESOURCE_ENGINES.computeIfAbsent(root, r -> forResourcePath(null, r));
+    }
+
 }
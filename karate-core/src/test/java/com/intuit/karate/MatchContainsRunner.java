@@ -0,0 +1,68 @@
+package com.intuit.karate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * timing of match contains on a large array, literal expected items use the
+ * hashed fast path, the fuzzy ones (with a macro) fall back to a nested scan,
+ * not run as part of the build
+ *
+ * @author pthomas3
+ */
+class MatchContainsRunner {
+
+    static final Logger logger = LoggerFactory.getLogger(MatchContainsRunner.class);
+
+    static final int SIZE = 10000;
+    static final int EXPECTED = 100;
+    static final int ITERATIONS = 5;
+
+    List<Object> actual() {
+        List<Object> list = new ArrayList(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            Map<String, Object> map = new LinkedHashMap();
+            map.put("id", i);
+            map.put("name", "name" + i);
+            map.put("tags", Json.of("['a', 'b', 'c']").value());
+            list.add(map);
+        }
+        return list;
+    }
+
+    List<Object> expected(boolean fuzzy) {
+        List<Object> list = new ArrayList(EXPECTED);
+        for (int i = SIZE - EXPECTED; i < SIZE; i++) { // worst case, near the end
+            Map<String, Object> map = new LinkedHashMap();
+            map.put("id", i);
+            map.put("name", "name" + i);
+            map.put("tags", fuzzy ? "#array" : Json.of("['a', 'b', 'c']").value());
+            list.add(map);
+        }
+        return list;
+    }
+
+    long time(List<Object> actual, List<Object> expected) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertTrue(Match.evaluate(actual).contains(expected).pass);
+        }
+        return (System.nanoTime() - start) / ITERATIONS / 1000000;
+    }
+
+    @Test
+    void testContains() {
+        List<Object> actual = actual();
+        time(actual, expected(false)); // warm up
+        long literal = time(actual, expected(false));
+        long fuzzy = time(actual, expected(true));
+        logger.info("actual: {} | expected: {} | literal: {} ms | fuzzy: {} ms", SIZE, EXPECTED, literal, fuzzy);
+    }
+
+}
@@ -4,6 +4,10 @@ import com.intuit.karate.graal.JsEngine;
 import static org.junit.jupiter.api.Assertions.*;
 import static com.intuit.karate.Match.Type.*;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
@@ -147,6 +151,81 @@ class MatchTest {
         message("actual array does not contain expected item - baz");
     }
 
+    @Test
+    void testListContainsLarge() {
+        List<Object> list = new ArrayList();
+        for (int i = 0; i < 100; i++) {
+            Map<String, Object> map = new LinkedHashMap();
+            map.put("id", i);
+            map.put("name", "n" + i);
+            list.add(map);
+        }
+        list.add(1.5);
+        list.add(new BigDecimal("2.50"));
+        list.add("foo");
+        list.add(null);
+        match(list, CONTAINS, "[{ name: 'n42', id: 42.0 }, 1.50, 2.5, 'foo', null]");
+        match(list, CONTAINS, "[{ name: 'n42', id: '#number' }, { id: 99, name: '#string' }]");
+        match(list, CONTAINS_ANY, "[{ id: 1000, name: 'x' }, 'foo']");
+        match(list, CONTAINS, "{ id: 42, name: 'n42', extra: true }", FAILS);
+        message("actual array does not contain expected item");
+        match(list, CONTAINS, "[{ id: '42', name: 'n42' }]", FAILS);
+        match(list, NOT_CONTAINS, "{ id: 1000, name: 'n1000' }");
+        match(list, NOT_CONTAINS, "{ id: 7, name: 'n7' }", FAILS);
+        list.add(XmlUtils.toXmlDoc("<root><a>1</a></root>"));
+        match(list, CONTAINS, Arrays.asList(XmlUtils.toXmlDoc("<root><a>1</a></root>"), "foo"));
+    }
+
+    @Test
+    void testFailuresBounded() {
+        List<Object> list = new ArrayList();
+        for (int i = 0; i < 200; i++) {
+            list.add(Json.of("{ a: " + i + " }").value());
+        }
+        Object expected = Json.of("[{ a: 199 }, { a: '#number' }]").value();
+        MatchOperation mo = new MatchOperation(JsEngine.global(), 10, CONTAINS, new Match.Value(list), new Match.Value(expected));
+        mo.execute();
+        assertTrue(mo.pass);
+        assertTrue(mo.failures.isEmpty()); // search mis-matches discarded
+        expected = Json.of("[{ a: '#number' }, { a: '#string' }]").value();
+        mo = new MatchOperation(JsEngine.global(), 10, CONTAINS, new Match.Value(list), new Match.Value(expected));
+        mo.execute();
+        assertFalse(mo.pass);
+        assertEquals(10, mo.failures.size());
+        message = mo.getFailureReasons();
+        message("$ | actual does not contain expected | actual array does not contain expected item");
+        message("more failure(s) not shown");
+    }
+
+    @Test
+    void testFailuresBoundedNotEvictedBySpeculation() {
+        List<Object> list = new ArrayList();
+        for (int i = 0; i < 200; i++) {
+            list.add(Json.of("{ a: " + i + " }").value());
+        }
+        Map<String, Object> actual = new LinkedHashMap();
+        actual.put("a", 1);
+        actual.put("b", list);
+        Object expected = Json.of("{ a: 2, b: [{ a: 199 }] }").value();
+        MatchOperation mo = new MatchOperation(JsEngine.global(), 3, CONTAINS_DEEP, new Match.Value(actual), new Match.Value(expected));
+        mo.execute();
+        assertFalse(mo.pass);
+        message = mo.getFailureReasons();
+        message("$.a | not equal");
+        assertFalse(message.contains("not shown"));
+    }
+
+    @Test
+    void testRegexCacheBounded() {
+        Match.RegexValidator first = Match.RegexValidator.of("a{1}");
+        assertSame(first, Match.RegexValidator.of("a{1}"));
+        for (int i = 0; i < 1000; i++) {
+            Match.RegexValidator.of("a{" + i + "}");
+        }
+        assertTrue(Match.RegexValidator.CACHE.size() <= 256);
+        assertNotSame(first, Match.RegexValidator.of("a{1}"));
+    }
+
     @Test
     void testListNotContains() {
         match("['foo', 'bar']", NOT_CONTAINS, "baz");
@@ -0,0 +1,33 @@
+package com.intuit.karate;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author pthomas3
+ */
+class ResultsAggregateTest {
+
+    @Test
+    void testSameAsReadFromReports() {
+        Results results = Runner.path(
+                "classpath:com/intuit/karate/core/parallel/parallel-outline-1.feature",
+                "classpath:com/intuit/karate/core/parallel/parallel-outline-2.feature",
+                "classpath:com/intuit/karate/core/fail1.feature")
+                .configDir("classpath:com/intuit/karate/core/parallel")
+                .reportDir("target/results-aggregate").backupReportDir(false)
+                .parallel(2);
+        Suite suite = results.getSuite();
+        ResultsAggregate fromFiles = ResultsAggregate.of(suite.getFeatureResults()::iterator);
+        assertEquals(2, results.getFeaturesPassed());
+        assertEquals(1, results.getFeaturesFailed());
+        assertEquals(fromFiles.getFeaturesPassed(), results.getFeaturesPassed());
+        assertEquals(fromFiles.getFeaturesFailed(), results.getFeaturesFailed());
+        assertEquals(fromFiles.getScenariosPassed(), results.getScenariosPassed());
+        assertEquals(fromFiles.getScenariosFailed(), results.getScenariosFailed());
+        assertEquals(fromFiles.getErrors(), results.getErrors());
+        assertEquals(fromFiles.getFeatureSummary().size(), suite.getResultsAggregate().getFeatureSummary().size());
+    }
+
+}
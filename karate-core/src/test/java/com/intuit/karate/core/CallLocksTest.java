@@ -0,0 +1,106 @@
+package com.intuit.karate.core;
+
+import com.intuit.karate.Runner;
+import com.intuit.karate.Suite;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author pthomas3
+ */
+class CallLocksTest {
+
+    @Test
+    void testDifferentKeysDoNotBlock() throws Exception {
+        CallLocks locks = new CallLocks();
+        ReentrantLock auth = locks.lock("auth.feature");
+        CountDownLatch latch = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            locks.lock("seed.feature").unlock();
+            latch.countDown();
+        });
+        thread.start();
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        auth.unlock();
+        assertTrue(locks.isEmpty());
+    }
+
+    @Test
+    void testSameKeyWaitRecorded() throws Exception {
+        CallLocks locks = new CallLocks();
+        ReentrantLock auth = locks.lock("auth.feature");
+        Thread thread = new Thread(() -> locks.lock("auth.feature").unlock());
+        thread.start();
+        while (!auth.hasQueuedThreads()) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        auth.unlock();
+        thread.join();
+        Map<String, Object> stats = (Map) locks.getWaitStats().get("auth.feature");
+        assertEquals(1L, stats.get("waiters"));
+        assertTrue((Long) stats.get("waitedMillis") >= 50);
+    }
+
+    @Test
+    void testSuitesSharingCacheShareLocks() throws Exception {
+        Map<String, Object> cache = new HashMap(); // like the karate-gatling global cache
+        Suite first = new Suite(Runner.builder().suiteCache(cache));
+        Suite second = new Suite(Runner.builder().suiteCache(cache));
+        ReentrantLock auth = first.callSingleLocks.lock("auth.feature");
+        CountDownLatch latch = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            ReentrantLock lock = second.callSingleLocks.lock("auth.feature");
+            assertTrue(second.callSingleLocks.isCached("auth.feature"));
+            lock.unlock();
+            latch.countDown();
+        });
+        thread.start();
+        while (!auth.hasQueuedThreads()) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, latch.getCount()); // blocked by the lock of the other suite
+        first.callSingleLocks.putCached("auth.feature", "token");
+        auth.unlock();
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals("token", second.callSingleLocks.getCached("auth.feature"));
+        assertEquals(1, cache.size()); // nothing else added to the user's cache
+        ReentrantLock other = new Suite(Runner.builder()).callSingleLocks.lock("auth.feature");
+        assertNotSame(auth, other);
+        other.unlock();
+    }
+
+    @Test
+    void testCycleFailsInsteadOfDeadlock() throws Exception {
+        CallLocks locks = new CallLocks();
+        ReentrantLock a = locks.lock("a.feature");
+        CountDownLatch holding = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            ReentrantLock b = locks.lock("b.feature");
+            holding.countDown();
+            locks.lock("a.feature").unlock(); // blocks until the main thread gives up
+            b.unlock();
+        });
+        thread.start();
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+        while (!a.hasQueuedThreads()) {
+            Thread.sleep(10);
+        }
+        try {
+            locks.lock("b.feature");
+            fail("expected deadlock error");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("b.feature -> a.feature"));
+        }
+        a.unlock();
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+    }
+
+}
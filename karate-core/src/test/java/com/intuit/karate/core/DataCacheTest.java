@@ -0,0 +1,51 @@
+package com.intuit.karate.core;
+
+import com.intuit.karate.FileUtils;
+import com.intuit.karate.resource.FileResource;
+import com.intuit.karate.resource.Resource;
+import java.io.File;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author pthomas3
+ */
+class DataCacheTest {
+
+    static Resource resource(String name, String text) {
+        File file = new File("target/data-cache/" + name);
+        FileUtils.writeToFile(file, text);
+        return new FileResource(file);
+    }
+
+    @Test
+    void testLeastRecentlyUsedEvicted() {
+        DataCache cache = new DataCache(2, 1000);
+        Resource a = resource("a.txt", "a");
+        Resource b = resource("b.txt", "b");
+        Resource c = resource("c.txt", "c");
+        cache.get(a, t -> t);
+        cache.get(b, t -> t);
+        cache.get(a, t -> t); // b is now the eldest
+        cache.get(c, t -> t);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        cache.get(a, t -> t);
+        assertEquals(2, cache.getHitCount());
+        cache.get(b, t -> t);
+        assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    void testMaxSize() {
+        DataCache cache = new DataCache(10, 5);
+        cache.get(resource("big.txt", "123456"), t -> t); // never cached
+        assertEquals(0, cache.size());
+        cache.get(resource("d.txt", "123"), t -> t);
+        cache.get(resource("e.txt", "123"), t -> t);
+        assertEquals(1, cache.size());
+        assertEquals(3, cache.getSize());
+    }
+
+}
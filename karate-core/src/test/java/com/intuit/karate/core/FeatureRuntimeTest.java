@@ -147,6 +147,13 @@ class FeatureRuntimeTest {
         run("call-by-tag.feature");
     }
 
+    @Test
+    void testCalledFeatureParsedOnce() {
+        run("call-cached.feature");
+        assertEquals(1, fr.suite.featureCache.getMissCount());
+        assertEquals(2, fr.suite.featureCache.getHitCount());
+    }
+
     @Test
     void testCallByTagCalled() {
         run("call-by-tag-called.feature");
@@ -0,0 +1,154 @@
+package com.intuit.karate.core;
+
+import com.intuit.karate.Json;
+import static com.intuit.karate.TestUtils.*;
+import com.intuit.karate.http.ApacheHttpClient;
+import com.intuit.karate.http.HttpClientPool;
+import com.intuit.karate.http.HttpRequestBuilder;
+import com.intuit.karate.http.HttpServer;
+import com.intuit.karate.http.Response;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author pthomas3
+ */
+class HttpClientPoolTest {
+
+    HttpServer server;
+    HttpClientPool pool;
+
+    @BeforeEach
+    void beforeEach() {
+        FeatureBuilder mock = FeatureBuilder.background().scenario(
+                "pathMatches('/hello')",
+                "def response = 'hello world'");
+        server = HttpServer.handler(new MockHandler(mock.build())).build();
+        pool = new HttpClientPool();
+    }
+
+    @AfterEach
+    void afterEach() {
+        pool.close();
+        server.stop();
+    }
+
+    Response invoke(ScenarioEngine se) {
+        HttpRequestBuilder http = new HttpRequestBuilder(new ApacheHttpClient(se, pool));
+        return http.url("http://localhost:" + server.getPort()).path("/hello").invoke("get");
+    }
+
+    @Test
+    void testConnectionReusedAcrossClients() {
+        ScenarioEngine se = ScenarioEngine.forTempUse();
+        match(invoke(se).getBodyAsString(), "hello world");
+        match(invoke(se).getBodyAsString(), "hello world");
+        match(invoke(ScenarioEngine.forTempUse()).getBodyAsString(), "hello world");
+        assertEquals(3, pool.getRequestCount());
+        assertEquals(1, pool.getConnectionCount());
+        assertEquals(2, pool.getReuseCount());
+    }
+
+    @Test
+    void testConfigChangeUsesNewPool() {
+        ScenarioEngine se = ScenarioEngine.forTempUse();
+        match(invoke(se).getBodyAsString(), "hello world");
+        se.configure("httpPool", new Variable(Json.of("{ maxPerRoute: 5 }").asMap()));
+        match(invoke(se).getBodyAsString(), "hello world");
+        assertEquals(2, pool.getStats().get("pools"));
+        assertEquals(2, pool.getConnectionCount());
+    }
+
+    @Test
+    void testKeepAliveDisabled() {
+        ScenarioEngine se = ScenarioEngine.forTempUse();
+        se.configure("httpPool", new Variable(Json.of("{ keepAlive: false }").asMap()));
+        match(invoke(se).getBodyAsString(), "hello world");
+        match(invoke(se).getBodyAsString(), "hello world");
+        assertEquals(2, pool.getConnectionCount());
+        assertEquals(0, pool.getReuseCount());
+    }
+
+    @Test
+    void testPoolsNeverClosedDoNotLeakThreads() {
+        for (int i = 0; i < 10; i++) { // e.g. a suite per call under karate-gatling
+            HttpClientPool temp = new HttpClientPool();
+            HttpRequestBuilder http = new HttpRequestBuilder(new ApacheHttpClient(ScenarioEngine.forTempUse(), temp));
+            match(http.url("http://localhost:" + server.getPort()).path("/hello").invoke("get").getBodyAsString(), "hello world");
+        }
+        long evictors = Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().startsWith("karate-http-evictor")).count();
+        assertEquals(1, evictors);
+    }
+
+    @Test
+    void testRequestsNotCountedWhenPoolDisabled() {
+        ScenarioEngine se = ScenarioEngine.forTempUse();
+        se.configure("httpPool", new Variable(false));
+        match(invoke(se).getBodyAsString(), "hello world");
+        match(invoke(se).getBodyAsString(), "hello world");
+        assertEquals(0, pool.getRequestCount());
+        assertEquals(0, pool.getReuseCount());
+    }
+
+    static final String HEAD = "HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Length: 11\r\n\r\n";
+
+    @Test
+    void testConnectionReleasedWhenBodyReadFails() throws Exception {
+        ServerSocket ss = new ServerSocket(0);
+        Thread thread = new Thread(() -> {
+            try {
+                Socket first = ss.accept(); // sends only part of the body, then stalls
+                readRequest(first.getInputStream());
+                first.getOutputStream().write((HEAD + "hello").getBytes(StandardCharsets.UTF_8));
+                first.getOutputStream().flush();
+                while (true) {
+                    Socket socket = ss.accept();
+                    readRequest(socket.getInputStream());
+                    OutputStream os = socket.getOutputStream();
+                    os.write((HEAD + "hello world").getBytes(StandardCharsets.UTF_8));
+                    os.flush();
+                }
+            } catch (Exception e) {
+                // server closed
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        try {
+            ScenarioEngine se = ScenarioEngine.forTempUse();
+            se.configure("httpPool", new Variable(Json.of("{ maxPerRoute: 1 }").asMap()));
+            se.configure("readTimeout", new Variable(500));
+            se.configure("connectTimeout", new Variable(2000));
+            HttpRequestBuilder http = new HttpRequestBuilder(new ApacheHttpClient(se, pool));
+            String url = "http://localhost:" + ss.getLocalPort();
+            assertThrows(RuntimeException.class, () -> http.url(url).path("/hello").invoke("get"));
+            http.reset();
+            // would time out waiting for the only connection of the route if it leaked
+            match(http.url(url).path("/hello").invoke("get").getBodyAsString(), "hello world");
+        } finally {
+            ss.close();
+        }
+    }
+
+    static void readRequest(InputStream is) throws Exception {
+        int matched = 0;
+        byte[] end = "\r\n\r\n".getBytes(StandardCharsets.UTF_8);
+        while (matched < end.length) {
+            int b = is.read();
+            if (b == -1) {
+                return;
+            }
+            matched = b == end[matched] ? matched + 1 : (b == end[0] ? 1 : 0);
+        }
+    }
+
+}
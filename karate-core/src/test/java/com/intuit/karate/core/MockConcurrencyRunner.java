@@ -0,0 +1,76 @@
+package com.intuit.karate.core;
+
+import static com.intuit.karate.TestUtils.*;
+import com.intuit.karate.http.ApacheHttpClient;
+import com.intuit.karate.http.HttpClientPool;
+import com.intuit.karate.http.HttpRequestBuilder;
+import com.intuit.karate.http.HttpServer;
+import com.intuit.karate.http.Response;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * throughput comparison of the default (synchronized) and concurrent mock
+ * handler modes, not run as part of the build - note that the gain depends
+ * on the number of cores (and armeria event-loop threads) available
+ *
+ * @author pthomas3
+ */
+class MockConcurrencyRunner {
+
+    static final Logger logger = LoggerFactory.getLogger(MockConcurrencyRunner.class);
+
+    static final int THREADS = 16;
+    static final int REQUESTS = 2000;
+
+    double run(boolean concurrent) throws Exception {
+        FeatureBuilder mock = FeatureBuilder.background().scenario(
+                "pathMatches('/cats/{id}')",
+                "def cat = { id: '#(pathParams.id)', name: 'Billie', tags: ['a', 'b', 'c'] }",
+                "def response = cat");
+        HttpServer server = HttpServer.handler(new MockHandler(mock.build(), null, concurrent)).build();
+        HttpClientPool pool = new HttpClientPool();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        ThreadLocal<HttpRequestBuilder> clients = ThreadLocal.withInitial(() -> {
+            ApacheHttpClient client = new ApacheHttpClient(ScenarioEngine.forTempUse(), pool);
+            return new HttpRequestBuilder(client);
+        });
+        try {
+            List<Future<Response>> futures = new ArrayList(REQUESTS);
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < REQUESTS; i++) {
+                String id = i + "";
+                futures.add(executor.submit(() -> clients.get().reset()
+                        .url("http://localhost:" + server.getPort()).paths("cats", id).invoke("get")));
+            }
+            for (Future<Response> future : futures) {
+                assertEquals(200, future.get().getStatus());
+            }
+            long elapsed = System.currentTimeMillis() - start;
+            double perSecond = REQUESTS * 1000.0 / elapsed;
+            logger.info("concurrent: {} | requests: {} | threads: {} | elapsed: {} ms | requests/sec: {}",
+                    concurrent, REQUESTS, THREADS, elapsed, String.format("%.1f", perSecond));
+            return perSecond;
+        } finally {
+            executor.shutdownNow();
+            pool.close();
+            server.stop();
+        }
+    }
+
+    @Test
+    void testThroughput() throws Exception {
+        run(false); // warm up
+        double sync = run(false);
+        double concurrent = run(true);
+        logger.info("concurrent / synchronized throughput: {}", String.format("%.2f", concurrent / sync));
+    }
+
+}
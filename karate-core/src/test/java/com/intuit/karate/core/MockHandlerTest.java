@@ -3,9 +3,17 @@ package com.intuit.karate.core;
 import static com.intuit.karate.TestUtils.*;
 import com.intuit.karate.http.HttpClient;
 import com.intuit.karate.http.HttpRequestBuilder;
+import com.intuit.karate.http.Request;
 import com.intuit.karate.http.Response;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -317,6 +325,151 @@ class MockHandlerTest {
                 .contentType("application/xml");
         handle();
         match(response.getBodyAsString(), "NULL");        
-    }    
+    }
+
+    @Test
+    void testConcurrentGlobalsPublished() {
+        background("def count = 0").scenario(
+                "pathMatches('/hello')",
+                "def count = count + 1",
+                "def response = count"
+        );
+        handler = new MockHandler(feature.build(), null, true);
+        request.path("/hello");
+        handler.handle(request.build().toRequest());
+        response = handler.handle(request.build().toRequest());
+        match(response.getBodyAsString(), "2");
+    }
+
+    @Test
+    void testConcurrentWithLock() throws Exception {
+        background("def cats = {}").scenario(
+                "pathMatches('/cats/{id}')",
+                "eval withLock('cats', function(){ cats[pathParams.id] = true })",
+                "def response = karate.sizeOf(cats)"
+        );
+        handler = new MockHandler(feature.build(), null, true);
+        List<Request> requests = new ArrayList();
+        for (int i = 0; i < 100; i++) {
+            requests.add(new HttpRequestBuilder(client).method("GET").path("/cats/" + i).build().toRequest());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Response>> futures = new ArrayList();
+        for (Request req : requests) {
+            futures.add(executor.submit(() -> handler.handle(req)));
+        }
+        for (Future<Response> future : futures) {
+            match(future.get().getStatus(), 200);
+        }
+        executor.shutdownNow();
+        response = handler.handle(requests.get(0));
+        match(response.getBodyAsString(), "100");
+    }
+
+    @Test
+    void testConcurrentInPlaceChangesNotShared() {
+        background("def cats = ({ fun: function(x){ return 'hello ' + x } })").scenario(
+                "pathMatches('/set')",
+                "set cats.name = 'billie'",
+                "def fun = cats.fun",
+                "def response = fun(cats.name)"
+        ).scenario(
+                "pathMatches('/get')",
+                "def fun = cats.fun",
+                "def response = cats.name ? 'shared' : fun('none')"
+        );
+        handler = new MockHandler(feature.build(), null, true);
+        response = handler.handle(request.path("/set").build().toRequest());
+        match(response.getBodyAsString(), "hello billie");
+        request = new HttpRequestBuilder(client).method("GET");
+        response = handler.handle(request.path("/get").build().toRequest());
+        match(response.getBodyAsString(), "hello none");
+    }
+
+    @Test
+    void testConcurrentOnlyChangedGlobalsCopied() {
+        background("def cats = []", "def dogs = {}", "def lookup = { a: 1 }", "def names = []").scenario(
+                "pathMatches('/cats')",
+                "eval cats.push(1)",
+                "set dogs.name = 'rex'"
+        ).scenario(
+                "pathMatches('/names')",
+                "def names = [lookup.a]",
+                "def response = lookup.a == 1 && lookup['a'] == 1"
+        );
+        handler = new MockHandler(feature.build(), null, true);
+        assertTrue(handler.isChangedInPlace("cats"));
+        assertTrue(handler.isChangedInPlace("dogs"));
+        assertFalse(handler.isChangedInPlace("lookup"));
+        assertFalse(handler.isChangedInPlace("names")); // re-assigned, not changed in-place
+        response = handler.handle(request.path("/names").build().toRequest());
+        match(response.getBodyAsString(), "true");
+    }
+
+    @Test
+    void testRouteIndexFirstMatchWins() {
+        background().scenario(
+                "pathMatches('/cats/{id}') && methodIs('delete')",
+                "def response = 'delete ' + pathParams.id"
+        ).scenario(
+                "pathMatches('/cats/{id}') && paramExists('full') && pathParams.id == '1'",
+                "def response = 'full ' + pathParams.id"
+        ).scenario(
+                "pathMatches('/cats/special')",
+                "def response = 'special'"
+        ).scenario(
+                "pathMatches('/cats/{id}')",
+                "def response = 'cat ' + pathParams.id"
+        ).scenario(
+                "methodIs('post') || paramExists('any')",
+                "def response = 'either'"
+        ).scenario(
+                "",
+                "def response = 'default'"
+        );
+        handler = new MockHandler(feature.build());
+        match(handler.handle(request.path("/cats/special").build().toRequest()).getBodyAsString(), "special");
+        request = new HttpRequestBuilder(client).method("DELETE");
+        match(handler.handle(request.path("/cats/2").build().toRequest()).getBodyAsString(), "delete 2");
+        request = new HttpRequestBuilder(client).method("GET");
+        match(handler.handle(request.path("/cats/1").param("full", "x").build().toRequest()).getBodyAsString(), "full 1");
+        request = new HttpRequestBuilder(client).method("GET");
+        match(handler.handle(request.path("/cats/2").param("full", "x").build().toRequest()).getBodyAsString(), "cat 2");
+        request = new HttpRequestBuilder(client).method("POST");
+        match(handler.handle(request.path("/dogs").build().toRequest()).getBodyAsString(), "either");
+        request = new HttpRequestBuilder(client).method("GET");
+        match(handler.handle(request.path("/dogs").build().toRequest()).getBodyAsString(), "default");
+        List<Map<String, Object>> routes = (List) handler.getStats().get("routes");
+        match(routes.get(0).get("residual"), null);
+        match(routes.get(1).get("residual"), "(pathParams.id == '1')");
+        match(routes.get(0).get("hits"), 1L);
+        match(routes.get(2).get("hits"), 1L);
+        match(routes.get(3).get("hits"), 1L);
+        match(routes.get(1).get("jsEvals"), 2L); // only for the requests with the param
+        match(routes.get(4).get("jsEvals"), 2L);
+    }
+
+    @Test
+    void testRouteIndexPredicateRedefined() {
+        background("def methodIs = function(m){ return m == 'custom' }").scenario(
+                "methodIs('custom')",
+                "def response = 'custom'"
+        ).scenario(
+                "",
+                "def response = 'default'"
+        );
+        request.path("/hello");
+        handle();
+        match(response.getBodyAsString(), "custom");
+    }
+
+    @Test
+    void testSplitConjunction() {
+        match(MockRoutes.splitConjunction("a && b('&&') && (c || d)"), "['a', \"b('&&')\", '(c || d)']");
+        match(MockRoutes.splitConjunction("a && b || c"), null);
+        match(MockRoutes.splitConjunction("a ? b : c"), null);
+        match(MockRoutes.splitConjunction("x = a && b"), null);
+        match(MockRoutes.splitConjunction("a == 1 && b != 2 && c >= 3"), "['a == 1', 'b != 2', 'c >= 3']");
+    }
 
 }
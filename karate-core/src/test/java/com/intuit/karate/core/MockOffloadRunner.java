@@ -0,0 +1,100 @@
+package com.intuit.karate.core;
+
+import static com.intuit.karate.TestUtils.*;
+import com.intuit.karate.http.ApacheHttpClient;
+import com.intuit.karate.http.HttpClientPool;
+import com.intuit.karate.http.HttpRequestBuilder;
+import com.intuit.karate.http.Response;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * p99 latency of a fast mock route while slow (blocking) requests are in
+ * flight, with the handler on the armeria event-loop versus offloaded to
+ * the blocking task executor, not run as part of the build
+ *
+ * @author pthomas3
+ */
+class MockOffloadRunner {
+
+    static final Logger logger = LoggerFactory.getLogger(MockOffloadRunner.class);
+
+    static final int SLOW_THREADS = 32;
+    static final int FAST_THREADS = 8;
+    static final int FAST_REQUESTS = 1000;
+
+    long run(boolean offload) throws Exception {
+        FeatureBuilder mock = FeatureBuilder.background().scenario(
+                "pathMatches('/slow')",
+                "eval Java.type('java.lang.Thread').sleep(50)",
+                "def response = { slow: true }").scenario(
+                "pathMatches('/fast')",
+                "def response = { fast: true }");
+        MockServer.Builder builder = MockServer.feature(mock.build()).http(0).concurrent(true);
+        if (!offload) {
+            builder.executor(Runnable::run);
+        }
+        MockServer server = builder.build();
+        String url = "http://localhost:" + server.getPort();
+        HttpClientPool pool = new HttpClientPool();
+        ExecutorService executor = Executors.newFixedThreadPool(SLOW_THREADS + FAST_THREADS);
+        ThreadLocal<HttpRequestBuilder> clients = ThreadLocal.withInitial(() -> {
+            ApacheHttpClient client = new ApacheHttpClient(ScenarioEngine.forTempUse(), pool);
+            return new HttpRequestBuilder(client);
+        });
+        try {
+            List<Long> latencies = Collections.synchronizedList(new ArrayList(FAST_REQUESTS));
+            List<Future> slow = new ArrayList(SLOW_THREADS);
+            for (int i = 0; i < SLOW_THREADS; i++) {
+                slow.add(executor.submit(() -> {
+                    while (latencies.size() < FAST_REQUESTS) {
+                        clients.get().reset().url(url).path("slow").invoke("get");
+                    }
+                }));
+            }
+            List<Future<Response>> fast = new ArrayList(FAST_REQUESTS);
+            for (int i = 0; i < FAST_REQUESTS; i++) {
+                fast.add(executor.submit(() -> {
+                    long start = System.nanoTime();
+                    Response response = clients.get().reset().url(url).path("fast").invoke("get");
+                    latencies.add(System.nanoTime() - start);
+                    return response;
+                }));
+            }
+            for (Future<Response> future : fast) {
+                assertEquals(200, future.get().getStatus());
+            }
+            for (Future future : slow) {
+                future.get();
+            }
+            List<Long> sorted = new ArrayList(latencies);
+            Collections.sort(sorted);
+            long p50 = sorted.get(sorted.size() / 2) / 1000000;
+            long p99 = sorted.get(sorted.size() * 99 / 100) / 1000000;
+            logger.info("offload: {} | fast requests: {} | p50: {} ms | p99: {} ms | server: {}",
+                    offload, FAST_REQUESTS, p50, p99, server.getStats());
+            return p99;
+        } finally {
+            executor.shutdownNow();
+            pool.close();
+            server.stop();
+        }
+    }
+
+    @Test
+    void testLatency() throws Exception {
+        run(true); // warm up
+        long eventLoop = run(false);
+        long offloaded = run(true);
+        logger.info("p99 event-loop / offloaded: {} / {} ms", eventLoop, offloaded);
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.intuit.karate.core;
+
+import static com.intuit.karate.TestUtils.*;
+import com.intuit.karate.http.HttpRequestBuilder;
+import com.intuit.karate.http.Request;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * requests per second for a mock with many scenarios where the request
+ * matches the last one, with predicates the route index can lift versus the
+ * same predicates wrapped so that they are left to js, not run as part of the
+ * build
+ *
+ * @author pthomas3
+ */
+class MockRoutesRunner {
+
+    static final Logger logger = LoggerFactory.getLogger(MockRoutesRunner.class);
+
+    static final int SCENARIOS = 300;
+    static final int REQUESTS = 2000;
+
+    double run(boolean indexed) {
+        FeatureBuilder mock = FeatureBuilder.background();
+        for (int i = 0; i < SCENARIOS; i++) {
+            String path = "'/route" + i + "/{id}'";
+            String expression = indexed
+                    ? "pathMatches(" + path + ") && methodIs('get')"
+                    : "(pathMatches(" + path + ")) && (methodIs('get'))"; // not lifted
+            mock.scenario(expression, "def response = { route: " + i + ", id: '#(pathParams.id)' }");
+        }
+        MockHandler handler = new MockHandler(mock.build());
+        Request request = new HttpRequestBuilder(new DummyClient()).method("GET")
+                .path("/route" + (SCENARIOS - 1) + "/42").build().toRequest();
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < REQUESTS; i++) {
+            assertEquals(200, handler.handle(request).getStatus());
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        double perSecond = REQUESTS * 1000.0 / elapsed;
+        logger.info("indexed: {} | scenarios: {} | requests: {} | elapsed: {} ms | requests/sec: {} | avg match: {} ms",
+                indexed, SCENARIOS, REQUESTS, elapsed, String.format("%.1f", perSecond), handler.getStats().get("avgMatchMillis"));
+        return perSecond;
+    }
+
+    @Test
+    void testThroughput() {
+        run(false); // warm up
+        run(true);
+        double js = run(false);
+        double indexed = run(true);
+        logger.info("indexed / js throughput: {}", String.format("%.2f", indexed / js));
+    }
+
+}
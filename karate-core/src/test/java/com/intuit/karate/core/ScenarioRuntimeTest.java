@@ -134,6 +134,26 @@ class ScenarioRuntimeTest {
         assertEquals(dataFromJson.getAsString(), "[{\"item\":{\"foo\":\"fooValue\",\"nested\":{\"bar\":\"barValue\",\"notfound\":\"#(baz)\"}}}]");
     }
 
+    @Test
+    void testReadFilesCachedAndCopied() {
+        run(
+                "def first = read('data.json')",
+                "set first.hello = 'changed'",
+                "def second = read('data.json')",
+                "match second == { hello: 'world' }",
+                "def foo = 'one'",
+                "def bar = 'two'",
+                "def one = read('read-expressions.json')",
+                "def foo = 'three'",
+                "def two = read('read-expressions.json')",
+                "match one[0].item.foo == 'one'",
+                "match two[0].item.foo == 'three'"
+        );
+        DataCache cache = sr.featureRuntime.suite.dataCache;
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.getHitCount());
+    }
+
     @Test
     void testCallJsFunction() {
         run(
@@ -753,6 +773,19 @@ class ScenarioRuntimeTest {
         );
     }
 
+    @Test
+    void testConfigureMatchFailureLimit() {
+        run(
+                "configure matchFailureLimit = 5",
+                "configure matchFailureLimit = null"
+        );
+        fail = true;
+        run(
+                "configure matchFailureLimit = 'five'"
+        );
+        assertTrue(sr.result.getErrorMessage().contains("bad matchFailureLimit config"));
+    }
+
     @Test
     void testMatchXmlXpath() {
         fail = true;
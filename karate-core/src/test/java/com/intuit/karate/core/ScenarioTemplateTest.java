@@ -0,0 +1,72 @@
+package com.intuit.karate.core;
+
+import com.intuit.karate.resource.MemoryResource;
+import com.intuit.karate.resource.ResourceUtils;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author pthomas3
+ */
+class ScenarioTemplateTest {
+
+    static String replace(String text, Map<String, String> values) {
+        String[] tokens = ScenarioTemplate.tokenize(text);
+        return tokens == null ? text : ScenarioTemplate.render(tokens, values);
+    }
+
+    @Test
+    void testTokenizeAndRender() {
+        Map<String, String> values = new HashMap();
+        values.put("a", "1");
+        values.put("first name", "<b>");
+        assertNull(ScenarioTemplate.tokenize("no placeholders"));
+        assertNull(ScenarioTemplate.tokenize("a > b"));
+        assertEquals("x 1 y", replace("x <a> y", values));
+        assertEquals("<1>", replace("<<a>>", values));
+        assertEquals("<x 1", replace("<x <a>", values));
+        assertEquals("1 > 0", replace("<a> > 0", values));
+        assertEquals("<c> <b>", replace("<c> <first name>", values)); // not a key, and no cascading
+        assertEquals("<foo>1</foo>", replace("<foo><a></foo>", values));
+    }
+
+    @Test
+    void testOutlineRowsExpandedLazily() {
+        String text = "Feature:\n"
+                + "Scenario Outline: name <name>\n"
+                + "* def foo = '<name>'\n"
+                + "* def bar =\n"
+                + "  \"\"\"\n"
+                + "  { id: <id> }\n"
+                + "  \"\"\"\n"
+                + "* table rows\n"
+                + "  | key | value  |\n"
+                + "  | 'x' | '<id>' |\n"
+                + "Examples:\n"
+                + "  | name | id |\n"
+                + "  | a    | 1  |\n"
+                + "  | b    | 2  |\n";
+        File file = ResourceUtils.getFileRelativeTo(getClass(), "dummy.feature");
+        Feature feature = Feature.read(new MemoryResource(file, text));
+        ScenarioOutline outline = feature.getSection(0).getScenarioOutline();
+        Iterator<Scenario> scenarios = outline.iterator(null);
+        Scenario first = scenarios.next();
+        assertEquals("name a", first.getName());
+        assertEquals("def foo = 'a'", first.getSteps().get(0).getText());
+        assertEquals("{ id: 1 }", first.getSteps().get(1).getDocString());
+        assertEquals("'1'", first.getSteps().get(2).getTable().getRows().get(1).get(1));
+        Scenario second = scenarios.next();
+        assertEquals("name b", second.getName());
+        assertEquals("def foo = 'b'", second.getSteps().get(0).getText());
+        assertFalse(scenarios.hasNext());
+        // the parse is untouched
+        assertEquals("def foo = '<name>'", outline.getSteps().get(0).getText());
+        assertEquals("def foo = 'b'", feature.getScenario(0, 1).getSteps().get(0).getText());
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.intuit.karate.core;
+
+import com.intuit.karate.TestUtils;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * steps per second when the step-definition is resolved per execution (a
+ * fresh step every time) versus once per step, not run as part of the build
+ *
+ * @author pthomas3
+ */
+class StepDispatchRunner {
+
+    static final Logger logger = LoggerFactory.getLogger(StepDispatchRunner.class);
+
+    static final String[] LINES = {
+        "def a = 1",
+        "def b = { foo: 'bar' }",
+        "match b == { foo: 'bar' }",
+        "assert a == 1",
+        "eval a = a + 1",
+        "configure continueOnStepFailure = false"
+    };
+
+    static final int ITERATIONS = 50000;
+
+    ScenarioRuntime sr;
+
+    List<Step> steps(boolean reuse, List<Step> previous) {
+        if (reuse && previous != null) {
+            return previous;
+        }
+        List<Step> list = new ArrayList(LINES.length);
+        for (int i = 0; i < LINES.length; i++) {
+            Step step = new Step(sr.scenario, i);
+            step.setText(LINES[i]);
+            list.add(step);
+        }
+        return list;
+    }
+
+    double run(boolean reuse) {
+        List<Step> steps = null;
+        long count = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            steps = steps(reuse, steps);
+            for (Step step : steps) {
+                Result result = StepRuntime.execute(step, sr.actions);
+                assertFalse(result.isFailed());
+                count++;
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1000000.0;
+        double perSecond = count * 1000 / elapsed;
+        logger.info("resolved once: {} | steps: {} | elapsed: {} ms | steps/sec: {}",
+                reuse, count, String.format("%.1f", elapsed), String.format("%.1f", perSecond));
+        return perSecond;
+    }
+
+    @Test
+    void testThroughput() {
+        sr = TestUtils.runtime();
+        sr.engine.init();
+        run(false); // warm up
+        run(true);
+        double perExecution = run(false);
+        double once = run(true);
+        logger.info("resolved once / per execution: {}", String.format("%.2f", once / perExecution));
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.intuit.karate.core;
 
+import com.intuit.karate.TestUtils;
 import cucumber.api.java.en.When;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -54,6 +55,30 @@ public class StepRuntimeTest {
         Assertions.assertEquals("com.intuit.karate.ScenarioActions.getFailedReason() null", methodMatch.toString());
     }
 
+    @Test
+    public void testResolvedOnceAndOnTextChange() {
+        ScenarioRuntime sr = TestUtils.runtime();
+        sr.engine.init();
+        Step step = new Step(sr.scenario, 0);
+        step.setText("def a = 1");
+        Result result = StepRuntime.execute(step, sr.actions);
+        Assertions.assertFalse(result.isFailed());
+        StepRuntime.Resolved resolved = step.resolved;
+        Assertions.assertNotNull(resolved);
+        Assertions.assertNotNull(result.getMatchingMethod().handle);
+        StepRuntime.execute(step, sr.actions);
+        Assertions.assertSame(resolved, step.resolved);
+        // e.g. an outline placeholder substituted or a debug eval
+        step.setText("match a == 1");
+        result = StepRuntime.execute(step, sr.actions);
+        Assertions.assertFalse(result.isFailed());
+        Assertions.assertNotSame(resolved, step.resolved);
+        Assertions.assertEquals("match a == 1", step.resolved.text);
+        step.setText("match a == 2");
+        result = StepRuntime.execute(step, sr.actions);
+        Assertions.assertTrue(result.isFailed());
+    }
+
     @ParameterizedTest
     @MethodSource("methodPatternAndKeywords")
     public void testMethodPatternAndKeywordMatch(Method scenarioActionMethod, String keyword) throws IllegalAccessException, NoSuchFieldException {
@@ -0,0 +1,11 @@
+@ignore
+Feature:
+
+@name=first
+Scenario: `first ${tag}`
+* def bar = 1
+* def name = karate.scenario.name
+
+@name=second
+Scenario:
+* def bar = 2
@@ -0,0 +1,10 @@
+Feature:
+
+Scenario:
+* def first = call read('call-cached-called.feature@name=first') { tag: 'one' }
+* match first.bar == 1
+* match first.name == 'first one'
+* def second = call read('call-cached-called.feature@name=second')
+* match second.bar == 2
+* def again = call read('call-cached-called.feature@name=first') { tag: 'two' }
+* match again.name == 'first two'
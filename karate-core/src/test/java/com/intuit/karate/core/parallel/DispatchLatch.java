@@ -0,0 +1,27 @@
+package com.intuit.karate.core.parallel;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * lets a feature wait until a scenario from another feature has started
+ *
+ * @author pthomas3
+ */
+public class DispatchLatch {
+
+    private static volatile CountDownLatch latch = new CountDownLatch(1);
+
+    public static void reset() {
+        latch = new CountDownLatch(1);
+    }
+
+    public static void otherFeatureStarted() {
+        latch.countDown();
+    }
+
+    public static boolean awaitOtherFeature() throws Exception {
+        return latch.await(10, TimeUnit.SECONDS);
+    }
+
+}
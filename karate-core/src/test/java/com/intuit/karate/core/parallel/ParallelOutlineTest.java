@@ -2,6 +2,12 @@ package com.intuit.karate.core.parallel;
 
 import com.intuit.karate.Results;
 import com.intuit.karate.Runner;
+import com.intuit.karate.core.DurationHistory;
+import com.intuit.karate.core.ParallelProcessor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
@@ -27,4 +33,56 @@ class ParallelOutlineTest {
         assertEquals(0, results.getFailCount());
     }
 
+    @Test
+    void testSlowBackgroundDoesNotBlockOtherFeatures() {
+        DispatchLatch.reset(); // in case this is re-run in the same jvm
+        Results results = Runner.path(
+                "classpath:com/intuit/karate/core/parallel/parallel-dispatch-slow.feature",
+                "classpath:com/intuit/karate/core/parallel/parallel-dispatch-fast.feature")
+                .configDir("classpath:com/intuit/karate/core/parallel")
+                .parallel(3);
+        assertEquals(3, results.getScenariosPassed());
+        assertEquals(0, results.getFailCount(), results.getErrorMessages());
+    }
+
+    @Test
+    void testParallelFalseScenariosDoNotBlockWorkers() {
+        Results results = Runner.path("classpath:com/intuit/karate/core/parallel/parallel-sync.feature")
+                .configDir("classpath:com/intuit/karate/core/parallel")
+                .parallel(2);
+        assertEquals(5, results.getScenariosPassed());
+        assertEquals(0, results.getFailCount(), results.getErrorMessages());
+    }
+
+    @Test
+    void testScheduleByDuration() {
+        String reportDir = "target/schedule-by-duration";
+        for (int i = 0; i < 2; i++) { // second run uses the history saved by the first
+            Results results = Runner.path(
+                    "classpath:com/intuit/karate/core/parallel/parallel-outline-1.feature",
+                    "classpath:com/intuit/karate/core/parallel/parallel-outline-2.feature")
+                    .configDir("classpath:com/intuit/karate/core/parallel")
+                    .reportDir(reportDir).backupReportDir(false)
+                    .scheduleByDuration(true)
+                    .parallel(3);
+            assertEquals(8, results.getScenariosPassed());
+            assertEquals(0, results.getFailCount());
+        }
+        DurationHistory history = DurationHistory.load(reportDir);
+        assertFalse(history.isEmpty());
+    }
+
+    @Test
+    void testTaskLongestFirst() {
+        PriorityBlockingQueue<ParallelProcessor.Task> queue = new PriorityBlockingQueue();
+        List<String> order = new ArrayList();
+        queue.add(new ParallelProcessor.Task(10, () -> order.add("short")));
+        queue.add(new ParallelProcessor.Task(500, () -> order.add("long")));
+        queue.add(new ParallelProcessor.Task(10, () -> order.add("short-later")));
+        while (!queue.isEmpty()) {
+            queue.poll().run();
+        }
+        assertEquals(Arrays.asList("long", "short", "short-later"), order);
+    }
+
 }
@@ -0,0 +1,71 @@
+package com.intuit.karate.core.parallel;
+
+import com.intuit.karate.Constants;
+import com.intuit.karate.Results;
+import com.intuit.karate.Runner;
+import com.intuit.karate.core.Feature;
+import com.intuit.karate.core.MockHandler;
+import com.intuit.karate.http.HttpServer;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * compares a parallel run with one js engine per thread (the default) vs one
+ * shared js engine, not run as part of the build - note that without the
+ * graal compiler (e.g. on a stock jdk) only parsing is shared
+ *
+ * @author pthomas3
+ */
+class SharedJsEngineRunner {
+
+    static final Logger logger = LoggerFactory.getLogger(SharedJsEngineRunner.class);
+
+    static final int THREADS = 8;
+    static final int ROUNDS = 3;
+
+    static HttpServer server;
+
+    @BeforeAll
+    static void beforeAll() {
+        MockHandler mock = new MockHandler(Feature.read("classpath:com/intuit/karate/core/parallel/mock.feature"));
+        server = HttpServer.handler(mock).build();
+    }
+
+    @AfterAll
+    static void afterAll() {
+        server.stop();
+        System.clearProperty(Constants.KARATE_JS_ENGINE_SHARED);
+    }
+
+    long run(boolean shared) {
+        System.setProperty(Constants.KARATE_JS_ENGINE_SHARED, shared + "");
+        long total = 0;
+        for (int i = 0; i < ROUNDS; i++) { // new threads (and engines) for every suite
+            long start = System.currentTimeMillis();
+            Results results = Runner.path(
+                    "classpath:com/intuit/karate/core/parallel/parallel.feature",
+                    "classpath:com/intuit/karate/core/parallel/parallel-outline-1.feature",
+                    "classpath:com/intuit/karate/core/parallel/parallel-outline-2.feature")
+                    .configDir("classpath:com/intuit/karate/core/parallel")
+                    .systemProperty("server.port", server.getPort() + "")
+                    .outputHtmlReport(false)
+                    .parallel(THREADS);
+            assertEquals(0, results.getFailCount(), results.getErrorMessages());
+            total += System.currentTimeMillis() - start;
+        }
+        return total / ROUNDS;
+    }
+
+    @Test
+    void testSharedEngine() {
+        run(false); // warm up
+        long perThread = run(false);
+        long shared = run(true);
+        logger.info("threads: {} | per-thread engines: {} ms | shared engine: {} ms", THREADS, perThread, shared);
+    }
+
+}
@@ -0,0 +1,5 @@
+Feature:
+
+Scenario:
+ * def Dispatch = Java.type('com.intuit.karate.core.parallel.DispatchLatch')
+ * eval Dispatch.otherFeatureStarted()
@@ -0,0 +1,13 @@
+Feature:
+
+Background:
+ # only proceeds once a scenario from the other feature has started
+ * def Dispatch = Java.type('com.intuit.karate.core.parallel.DispatchLatch')
+ * assert Dispatch.awaitOtherFeature()
+ * def data = [ { name: 'value1' }, { name: 'value2' } ]
+
+Scenario Outline:
+ * match name == '#string'
+
+ Examples:
+  | data |
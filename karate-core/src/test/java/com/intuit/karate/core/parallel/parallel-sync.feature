@@ -0,0 +1,20 @@
+Feature:
+
+Scenario:
+ * match 1 == 1
+
+@parallel=false
+Scenario:
+ * eval java.lang.Thread.sleep(100)
+
+@parallel=false
+Scenario:
+ * eval java.lang.Thread.sleep(100)
+
+Scenario Outline:
+ * match name == '#string'
+
+ Examples:
+  | name   |
+  | value1 |
+  | value2 |
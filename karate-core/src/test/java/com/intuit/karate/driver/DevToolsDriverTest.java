@@ -0,0 +1,159 @@
+package com.intuit.karate.driver;
+
+import com.intuit.karate.Json;
+import com.intuit.karate.core.FeatureRuntime;
+import com.intuit.karate.core.ScenarioRuntime;
+import com.intuit.karate.driver.chrome.Chrome;
+import com.intuit.karate.http.WebSocketServerBase;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author pthomas3
+ */
+class DevToolsDriverTest {
+
+    // stands in for the browser, records what was sent and optionally replies
+    @ChannelHandler.Sharable
+    static class Browser extends SimpleChannelInboundHandler<TextWebSocketFrame> {
+
+        final BlockingQueue<Map<String, Object>> received = new LinkedBlockingQueue();
+        volatile boolean autoReply;
+        volatile Predicate<Map<String, Object>> loadAfter; // page loads after this message
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, TextWebSocketFrame frame) {
+            Map<String, Object> map = Json.of(frame.text()).value();
+            received.add(map);
+            if (autoReply) {
+                ctx.writeAndFlush(new TextWebSocketFrame("{ \"id\": " + map.get("id") + ", \"result\": {} }"));
+            }
+            if (loadAfter != null && loadAfter.test(map)) {
+                ctx.writeAndFlush(new TextWebSocketFrame("{ \"method\": \"Page.domContentEventFired\", \"params\": {} }"));
+            }
+        }
+
+    }
+
+    Browser browser;
+    WebSocketServerBase server;
+    Chrome driver;
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        browser = new Browser();
+        server = new WebSocketServerBase(port, browser);
+        ScenarioRuntime sr = FeatureRuntime.forTempUse().scenarios.next();
+        DriverOptions options = new DriverOptions(new HashMap(), sr, 9222, null);
+        driver = new Chrome(options, null, "ws://127.0.0.1:" + port + "/");
+    }
+
+    @AfterEach
+    void afterEach() {
+        driver.client.close();
+        server.stop();
+    }
+
+    DevToolsMessage message(String json) {
+        Map<String, Object> map = Json.of(json).value();
+        return new DevToolsMessage(driver, map);
+    }
+
+    DevToolsMessage reply(DevToolsMessage dtm) {
+        return message("{ id: " + dtm.getId() + ", result: { value: 'reply " + dtm.getId() + "' } }");
+    }
+
+    @Test
+    void testPendingCompletedByReply() throws Exception {
+        DevToolsMessage dtm = driver.method("Page.navigate");
+        CompletableFuture<DevToolsMessage> future = driver.sendAsync(dtm);
+        assertEquals("Page.navigate", browser.received.poll(5, TimeUnit.SECONDS).get("method"));
+        driver.receive(message("{ method: 'Page.frameResized', params: {} }")); // events do not complete it
+        assertFalse(future.isDone());
+        DevToolsMessage reply = reply(dtm);
+        driver.receive(reply);
+        assertSame(reply, future.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testDialogCompletesAllPending() throws Exception {
+        CompletableFuture<DevToolsMessage> first = driver.sendAsync(driver.method("Runtime.evaluate"));
+        CompletableFuture<DevToolsMessage> second = driver.sendAsync(driver.method("Input.dispatchMouseEvent"));
+        DevToolsMessage dialog = message("{ method: 'Page.javascriptDialogOpening', params: { message: 'hello' } }");
+        driver.receive(dialog);
+        assertSame(dialog, first.get(1, TimeUnit.SECONDS));
+        assertSame(dialog, second.get(1, TimeUnit.SECONDS));
+        assertEquals("hello", driver.getDialogText());
+    }
+
+    @Test
+    void testTimeout() {
+        DevToolsMessage dtm = driver.method("Page.navigate");
+        dtm.setTimeout(100);
+        long startTime = System.currentTimeMillis();
+        try {
+            dtm.send();
+            fail("expected timeout");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().startsWith("failed to get reply for:"));
+        }
+        assertTrue(System.currentTimeMillis() - startTime >= 100);
+        driver.receive(reply(dtm)); // late reply is ignored
+    }
+
+    @Test
+    void testSendAllKeepsOrder() throws Exception {
+        List<DevToolsMessage> messages = Arrays.asList(driver.method("a"), driver.method("b"), driver.method("c"));
+        CompletableFuture<List<DevToolsMessage>> future = CompletableFuture.supplyAsync(() -> driver.sendAll(messages));
+        List<Object> sent = new ArrayList();
+        for (int i = 0; i < messages.size(); i++) { // all sent before any reply
+            sent.add(browser.received.poll(5, TimeUnit.SECONDS).get("method"));
+        }
+        assertEquals(Arrays.asList("a", "b", "c"), sent);
+        List<DevToolsMessage> replies = new ArrayList();
+        for (int i = messages.size() - 1; i >= 0; i--) { // replies out of order
+            DevToolsMessage reply = reply(messages.get(i));
+            replies.add(0, reply);
+            driver.receive(reply);
+        }
+        assertEquals(replies, future.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testSubmitOnlyLastKeyWaitsForPageLoad() {
+        browser.autoReply = true;
+        browser.loadAfter = m -> {
+            Map<String, Object> params = (Map) m.get("params");
+            return "keyUp".equals(params.get("type")) && "b".equals(params.get("text"));
+        };
+        driver.timeout(3000);
+        long startTime = System.currentTimeMillis();
+        driver.submit().input("#foo", "ab");
+        // the first key would time out waiting for a page load that never comes
+        assertTrue(System.currentTimeMillis() - startTime < 2000);
+        assertTrue(driver.domContentEventFired); // the last key waited for it
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.intuit.karate.driver;
+
+import com.intuit.karate.core.FeatureRuntime;
+import com.intuit.karate.core.ScenarioRuntime;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author pthomas3
+ */
+class DriverPoolTest {
+
+    static class FakeDriver {
+
+        final List<String> calls = Collections.synchronizedList(new ArrayList());
+        final DriverOptions options;
+        boolean terminated;
+        final Driver driver;
+
+        FakeDriver(ScenarioRuntime sr) {
+            options = new DriverOptions(new HashMap(), sr, 9222, null);
+            driver = (Driver) Proxy.newProxyInstance(Driver.class.getClassLoader(), new Class[]{Driver.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getOptions":
+                        return options;
+                    case "isTerminated":
+                        return terminated;
+                    case "quit":
+                        terminated = true;
+                        return null;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        calls.add(method.getName());
+                        return null;
+                }
+            });
+        }
+
+    }
+
+    @Test
+    void testReuseResetAndWait() throws Exception {
+        ScenarioRuntime sr = FeatureRuntime.forTempUse().scenarios.next();
+        Map<String, Object> options = new HashMap();
+        options.put("type", "chrome");
+        options.put(DriverPool.POOL, true);
+        assertTrue(DriverPool.isPooled(options));
+        DriverPool pool = new DriverPool(1);
+        List<FakeDriver> fakes = new ArrayList();
+        Driver first = pool.checkout(options, sr, () -> {
+            FakeDriver fake = new FakeDriver(sr);
+            fakes.add(fake);
+            return fake.driver;
+        });
+        // only one allowed at a time, so the second waits for the check-in
+        CompletableFuture<Driver> future = CompletableFuture.supplyAsync(() -> pool.checkout(options, sr, () -> {
+            throw new RuntimeException("should re-use");
+        }));
+        Thread.sleep(100);
+        assertFalse(future.isDone());
+        assertTrue(pool.checkin(first));
+        Driver second = future.get();
+        assertSame(first, second);
+        assertEquals(1, fakes.size());
+        // reset after the first scenario, validated before the second
+        assertEquals("[script, clearCookies, setUrl, getUrl]", fakes.get(0).calls.toString());
+        fakes.get(0).terminated = true; // e.g. the test called quit()
+        assertTrue(pool.checkin(second));
+        Driver third = pool.checkout(options, sr, () -> new FakeDriver(sr).driver);
+        assertNotSame(first, third);
+        assertFalse(pool.checkin(new FakeDriver(sr).driver)); // not from the pool
+        Map<String, Object> stats = pool.getStats();
+        assertEquals(2L, stats.get("started"));
+        assertEquals(1L, stats.get("reused"));
+        assertEquals(1L, stats.get("discarded"));
+        assertEquals(1L, stats.get("waits"));
+    }
+
+    @Test
+    void testNestedCheckoutOnSameThread() {
+        ScenarioRuntime sr = FeatureRuntime.forTempUse().scenarios.next();
+        Map<String, Object> options = new HashMap();
+        options.put(DriverPool.POOL, true);
+        DriverPool pool = new DriverPool(1);
+        FakeDriver fake = new FakeDriver(sr);
+        Driver outer = pool.checkout(options, sr, () -> fake.driver);
+        // e.g. a called feature, would block forever on the only permit
+        Driver inner = pool.checkout(options, sr, () -> {
+            throw new RuntimeException("should re-use");
+        });
+        assertSame(outer, inner);
+        assertTrue(pool.checkin(inner));
+        assertTrue(fake.calls.isEmpty()); // still in use by the caller, so not reset
+        assertTrue(pool.checkin(outer));
+        assertEquals("[script, clearCookies, setUrl]", fake.calls.toString());
+        assertFalse(pool.checkin(outer));
+    }
+
+    @Test
+    void testWaitTimesOut() {
+        ScenarioRuntime sr = FeatureRuntime.forTempUse().scenarios.next();
+        Map<String, Object> options = new HashMap();
+        options.put(DriverPool.POOL, true);
+        DriverPool pool = new DriverPool(1, 100);
+        pool.checkout(options, sr, () -> new FakeDriver(sr).driver);
+        CompletableFuture<Driver> future = CompletableFuture.supplyAsync(() -> pool.checkout(options, sr, () -> new FakeDriver(sr).driver));
+        try {
+            future.join();
+            fail("expected timeout");
+        } catch (Exception e) {
+            assertTrue(e.getCause().getMessage().contains("timed out after 100 ms waiting for a pooled driver"));
+        }
+    }
+
+}
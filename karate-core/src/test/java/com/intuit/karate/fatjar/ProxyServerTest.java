@@ -7,6 +7,7 @@ import com.intuit.karate.http.ProxyServer;
 import com.intuit.karate.core.MockServer;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
@@ -60,6 +61,9 @@ class ProxyServerTest {
                 .configDir("classpath:com/intuit/karate/fatjar")
                 .parallel(1);
         assertEquals(0, results.getFailCount(), results.getErrorMessages());
+        Map<String, Object> stats = proxy.getStats();
+        logger.debug("proxy stats: {}", stats);
+        assertTrue((Long) stats.get("pooledReuses") > 0);
     }
 
     static HttpUriRequest get(String url) {
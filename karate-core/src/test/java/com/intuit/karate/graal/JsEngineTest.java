@@ -1,5 +1,6 @@
 package com.intuit.karate.graal;
 
+import com.intuit.karate.Constants;
 import com.intuit.karate.Match;
 import com.intuit.karate.core.MockUtils;
 import com.intuit.karate.http.Request;
@@ -8,6 +9,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import org.graalvm.polyglot.Engine;
 import org.graalvm.polyglot.Value;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -46,6 +48,84 @@ class JsEngineTest {
         assertEquals("function(){ return ['a', 'b', 'c'] }", v.toString());
     }
 
+    @Test
+    void testEvalMacro() {
+        assertTrue(je.evalMacro("_ > 1", 2, null).isTrue());
+        assertFalse(je.evalMacro("_ > 1", 0, null).isTrue());
+        assertTrue(je.evalMacro("_ == $.a", 1, Collections.singletonMap("a", 1)).isTrue());
+        assertTrue(je.evalMacro("_ == 2; ", 2, null).isTrue()); // not a plain expression
+        assertSame(JsEngine.NOT_A_FUNCTION, je.macros.get("_ == 2; ")); // not compiled again
+        assertFalse(je.evalMacro("_ == 2; ", 3, null).isTrue());
+        assertTrue(je.bindings.getMemberKeys().isEmpty());
+    }
+
+    @Test
+    void testLocalContextNotReUsedByDefault() {
+        JsEngine local = JsEngine.local();
+        local.eval("Array.prototype.foo = function(){ return 'leaked' }");
+        local.release();
+        JsEngine next = JsEngine.local();
+        assertNotSame(local, next);
+        assertFalse(next.isReused());
+        assertTrue(next.eval("[].foo === undefined").isTrue());
+    }
+
+    @Test
+    void testLocalContextReUsedAfterRelease() {
+        System.setProperty(Constants.KARATE_JS_POOL, "true");
+        try {
+            JsEngine local = JsEngine.local();
+            local.put("foo", "bar");
+            local.eval("var fun = function(){ return 'hello' }");
+            local.release();
+            assertNotSame(local, JsEngine.local()); // could not remove 'var'
+            local = JsEngine.local();
+            local.put("foo", "bar");
+            local.eval("baz = 1");
+            local.release();
+            local.release(); // has no effect
+            JsEngine reused = JsEngine.local();
+            assertSame(local, reused);
+            assertTrue(reused.isReused());
+            assertTrue(reused.bindings.getMemberKeys().isEmpty());
+            assertNotSame(reused, JsEngine.local());
+            reused.eval("const a = 1");
+            reused.release();
+            assertNotSame(reused, JsEngine.local());
+        } finally {
+            System.clearProperty(Constants.KARATE_JS_POOL);
+        }
+    }
+
+    @Test
+    void testAttachSourceUsesCachedSource() {
+        JsEngine local = JsEngine.local();
+        Value fun = local.attachSource("function(x){ return x * 2 }");
+        assertEquals(4, fun.execute(2).asInt());
+        assertSame(JsEngine.getSource("function(x){ return x * 2 }"), JsEngine.getSource("function(x){ return x * 2 }"));
+    }
+
+    static Engine engineOnNewThread() throws Exception {
+        Engine[] holder = new Engine[1];
+        Thread thread = new Thread(() -> holder[0] = JsEngine.global().context.getEngine());
+        thread.start();
+        thread.join();
+        return holder[0];
+    }
+
+    @Test
+    void testSharedEngine() throws Exception {
+        assertNotSame(engineOnNewThread(), engineOnNewThread());
+        System.setProperty(Constants.KARATE_JS_ENGINE_SHARED, "true");
+        try {
+            Engine engine = engineOnNewThread();
+            assertSame(engine, engineOnNewThread());
+            assertNotSame(engine, je.context.getEngine()); // this thread was initialized earlier
+        } finally {
+            System.clearProperty(Constants.KARATE_JS_ENGINE_SHARED);
+        }
+    }
+
     @Test
     void testArrowFunctionZeroArg() {
         JsValue v = je.eval("() => ['a', 'b', 'c']");
@@ -0,0 +1,47 @@
+package com.intuit.karate.http;
+
+import java.io.IOException;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.protocol.HttpCoreContext;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author pthomas3
+ */
+class ApacheHttpClientTest {
+
+    static HttpClientContext context(String method, boolean reused, boolean sent) {
+        HttpClientContext context = HttpClientContext.create();
+        context.setAttribute(HttpCoreContext.HTTP_REQUEST, new BasicHttpRequest(method, "/foo"));
+        context.setAttribute(HttpCoreContext.HTTP_REQ_SENT, sent);
+        context.setAttribute(ApacheHttpClient.CONNECTION_REUSED, reused);
+        return context;
+    }
+
+    static boolean retry(IOException e, int count, HttpClientContext context) {
+        return ApacheHttpClient.STALE_CONNECTION_RETRY.retryRequest(e, count, context);
+    }
+
+    @Test
+    void testStaleConnectionRetry() {
+        NoHttpResponseException e = new NoHttpResponseException("closed");
+        assertTrue(retry(e, 1, context("GET", true, true)));
+        assertTrue(retry(e, 1, context("DELETE", true, true)));
+        assertFalse(retry(e, 2, context("GET", true, true)));
+        assertFalse(retry(e, 1, context("GET", false, true)));
+        assertFalse(retry(new IOException("other"), 1, context("GET", true, true)));
+    }
+
+    @Test
+    void testNonIdempotentRetriedOnlyIfNotSent() {
+        NoHttpResponseException e = new NoHttpResponseException("closed");
+        assertFalse(retry(e, 1, context("POST", true, true)));
+        assertFalse(retry(e, 1, context("PATCH", true, true)));
+        assertTrue(retry(e, 1, context("POST", true, false)));
+    }
+
+}
@@ -7,9 +7,12 @@ import com.intuit.karate.core.Feature;
 import com.intuit.karate.core.FeatureRuntime;
 import com.intuit.karate.http.Response;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,11 +24,8 @@ class JobManagerRunner {
 
     static final Logger logger = LoggerFactory.getLogger(JobManagerRunner.class);
 
-    @Test
-    void testServer() throws Exception {
-        Feature feature = Feature.read("classpath:com/intuit/karate/job/test.feature");
-        FeatureRuntime fr = FeatureRuntime.of(feature);
-        JobConfig jc = new JobConfig() {
+    static JobConfig config(int port, int executorCount) {
+        return new JobConfig() {
             @Override
             public String getHost() {
                 return "localhost";
@@ -33,12 +33,22 @@ class JobManagerRunner {
 
             @Override
             public int getPort() {
-                return 8080;
+                return port;
             }
 
             @Override
             public int getExecutorCount() {
-                return 3;
+                return executorCount;
+            }
+
+            @Override
+            public int getBatchSize() {
+                return 2;
+            }
+
+            @Override
+            public long getLeaseMillis() {
+                return 500;
             }
 
             @Override
@@ -77,7 +87,36 @@ class JobManagerRunner {
             }
 
         };
-        JobManager jm = new JobManager(jc);
+    }
+
+    static Json invoke(JobManager jm, String method, String executorId, String chunkId) {
+        return invoke(jm, method, executorId, chunkId, "{}");
+    }
+
+    static Json invoke(JobManager jm, String method, String executorId, String chunkId, String body) {
+        Json json = Json.object();
+        json.set("method", method);
+        json.set("jobId", jm.jobId);
+        json.set("executorId", executorId);
+        if (chunkId != null) {
+            json.set("chunkId", chunkId);
+        }
+        Response response = Http.to("http://localhost:" + jm.server.getPort())
+                .header(JobManager.KARATE_JOB_HEADER, json.toString()).postJson(body);
+        Json header = Json.of(response.getHeader(JobManager.KARATE_JOB_HEADER));
+        if ("blobs".equals(method)) {
+            header.set("bytes", response.getBody().length);
+        } else if (response.getBody() != null && response.getBody().length > 0) {
+            header.set("body", response.json().asMap());
+        }
+        return header;
+    }
+
+    @Test
+    void testServer() throws Exception {
+        Feature feature = Feature.read("classpath:com/intuit/karate/job/test.feature");
+        FeatureRuntime fr = FeatureRuntime.of(feature);
+        JobManager jm = new JobManager(config(8080, 3));
         new Thread(() -> fr.scenarios.forEachRemaining(jm::addChunk)).start();
         Http http = Http.to("http://localhost:8080");
         Json json = Json.of("{ method: 'next', executorId: '1' }");
@@ -109,4 +148,45 @@ class JobManagerRunner {
         jm.server.stop();
     }
 
+    @Test
+    void testLeaseExpiryAndRequeue() throws Exception {
+        JobManager jm = new JobManager(config(0, 1));
+        List<CompletableFuture> futures = new ArrayList();
+        for (int i = 0; i < 3; i++) {
+            futures.add(jm.addChunk("c" + i));
+        }
+        Json json = invoke(jm, "lease", "1", null);
+        matchContains(json.asMap(), "{ method: 'lease', chunkId: '1' }");
+        match(json.get("body.chunks[*].chunkId"), "['1', '2']");
+        json = invoke(jm, "upload", "1", "1");
+        matchContains(json.asMap(), "{ method: 'upload', chunkId: '1' }");
+        Thread.sleep(1000); // executor 1 goes silent, chunk 2 lease expires
+        json = invoke(jm, "lease", "2", null);
+        match(json.get("body.chunks[*].chunkId"), "['3', '2']");
+        invoke(jm, "upload", "1", "2"); // late, but first, so it wins
+        invoke(jm, "upload", "2", "2"); // ignored
+        json = invoke(jm, "lease", "2", null);
+        matchContains(json.asMap(), "{ method: 'wait' }"); // chunk 3 still leased
+        invoke(jm, "upload", "2", "3");
+        json = invoke(jm, "lease", "2", null);
+        matchContains(json.asMap(), "{ method: 'stop' }");
+        for (CompletableFuture future : futures) {
+            assertTrue(future.isDone());
+        }
+        jm.server.stop();
+    }
+
+    @Test
+    void testContentAddressedDownload() throws Exception {
+        JobManager jm = new JobManager(config(0, 1));
+        Json json = invoke(jm, "download", null, null, "{ contentAddressed: true }");
+        matchContains(json.asMap(), "{ method: 'download', executorId: '1' }");
+        List<Map<String, Object>> manifest = json.get("body.manifest");
+        assertFalse(manifest.isEmpty());
+        String hash = (String) manifest.get(0).get("hash");
+        json = invoke(jm, "blobs", "1", null, "{ hashes: ['" + hash + "'] }");
+        assertTrue((Integer) json.get("bytes") > 0);
+        jm.server.stop();
+    }
+
 }
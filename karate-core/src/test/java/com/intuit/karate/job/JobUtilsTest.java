@@ -0,0 +1,62 @@
+package com.intuit.karate.job;
+
+import com.intuit.karate.FileUtils;
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author pthomas3
+ */
+class JobUtilsTest {
+
+    @Test
+    void testListFilesHashAndZipBlobs() {
+        File src = new File("target/job-utils-test/src");
+        FileUtils.writeToFile(new File(src, "a.txt"), "hello");
+        FileUtils.writeToFile(new File(src, "sub/b.txt"), "hello");
+        FileUtils.writeToFile(new File(src, "sub/target/c.txt"), "skipped");
+        Map<String, File> files = JobUtils.listFiles(src);
+        assertEquals(2, files.size());
+        String hash = JobUtils.sha1(files.get("a.txt"));
+        assertEquals("aaf4c61ddcc5e8a2dabede0f3b482cd9aea9434d", hash);
+        assertEquals(hash, JobUtils.sha1(files.get("sub/b.txt")));
+        byte[] bytes = JobUtils.zipBlobs(Collections.singletonList(hash), Collections.singletonMap(hash, files.get("a.txt")));
+        File zip = new File("target/job-utils-test/blobs.zip");
+        FileUtils.writeToFile(zip, bytes);
+        File dest = new File("target/job-utils-test/blobs");
+        JobUtils.unzip(zip, dest);
+        assertEquals("hello", FileUtils.toString(new File(dest, hash)));
+    }
+
+    @Test
+    void testChunksBackToBackUploadOnlyTheirOwnOutput() {
+        File root = new File("target/job-utils-test/chunks");
+        if (root.exists()) {
+            FileUtils.deleteDirectory(root);
+        }
+        File executorDir = new File(root, "executor");
+        long start1 = System.currentTimeMillis();
+        FileUtils.writeToFile(new File(executorDir, "first.json"), "{}");
+        FileUtils.writeToFile(new File(executorDir, "karate.log"), "first");
+        File zip1 = JobUtils.zipChunk(executorDir, "1", start1);
+        long start2 = System.currentTimeMillis();
+        FileUtils.writeToFile(new File(executorDir, "second.json"), "{}");
+        FileUtils.writeToFile(new File(executorDir, "karate.log"), "second");
+        File zip2 = JobUtils.zipChunk(executorDir, "2", start2);
+        File dest1 = new File(root, "dest1");
+        JobUtils.unzip(zip1, dest1);
+        assertTrue(new File(dest1, "first.json").exists());
+        assertFalse(new File(dest1, "second.json").exists());
+        assertEquals("first", FileUtils.toString(new File(dest1, "karate.log")));
+        File dest2 = new File(root, "dest2");
+        JobUtils.unzip(zip2, dest2);
+        assertTrue(new File(dest2, "second.json").exists());
+        assertFalse(new File(dest2, "first.json").exists());
+        assertEquals("second", FileUtils.toString(new File(dest2, "karate.log")));
+    }
+
+}
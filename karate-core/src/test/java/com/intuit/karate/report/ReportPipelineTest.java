@@ -0,0 +1,77 @@
+package com.intuit.karate.report;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author pthomas3
+ */
+class ReportPipelineTest {
+
+    static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    void testFlushWaitsForAllReports() {
+        ReportPipeline pipeline = new ReportPipeline(2);
+        AtomicInteger written = new AtomicInteger();
+        for (int i = 0; i < 50; i++) { // more than the queue can hold
+            pipeline.submit(() -> pipeline.time("html", () -> {
+                sleep(5);
+                return written.incrementAndGet();
+            }));
+        }
+        pipeline.flush();
+        assertEquals(50, written.get());
+        Map<String, Object> html = (Map) pipeline.getTimings().get("html");
+        assertEquals(50L, html.get("count"));
+        pipeline.shutdown();
+        pipeline.submit(() -> written.incrementAndGet()); // after shutdown, inline
+        assertEquals(51, written.get());
+    }
+
+    @Test
+    void testSubmitRacingShutdownDoesNotHangFlush() throws Exception {
+        ReportPipeline pipeline = new ReportPipeline(1);
+        AtomicInteger written = new AtomicInteger();
+        List<Thread> threads = new ArrayList();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 200; j++) {
+                    pipeline.submit(written::incrementAndGet);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        pipeline.shutdown(); // while the others are still submitting
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        CompletableFuture.runAsync(pipeline::flush).get(5, TimeUnit.SECONDS);
+        assertEquals(800, written.get()); // none dropped
+    }
+
+    @Test
+    void testFailedReportDoesNotBlockFlush() {
+        ReportPipeline pipeline = new ReportPipeline(1);
+        pipeline.submit(() -> {
+            throw new RuntimeException("not writable");
+        });
+        pipeline.flush();
+        pipeline.shutdown();
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.intuit.karate.report;
+
+import com.intuit.karate.core.Feature;
+import com.intuit.karate.core.FeatureRuntime;
+import com.intuit.karate.template.KarateTemplateEngine;
+import com.intuit.karate.template.TemplateUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * renders per second of karate-feature.html, comparing a new template engine
+ * per render (templates re-parsed every time) with the cached engine per
+ * resource root, not run as part of the build
+ *
+ * @author pthomas3
+ */
+class ReportRenderRunner {
+
+    static final Logger logger = LoggerFactory.getLogger(ReportRenderRunner.class);
+
+    static final int THREADS = 4;
+    static final int RENDERS = 400;
+
+    double run(FeatureRuntime fr, boolean cached) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Integer>> futures = new ArrayList(RENDERS);
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < RENDERS; i++) {
+                futures.add(executor.submit(() -> {
+                    Report report = SuiteReports.DEFAULT.featureReport(fr.suite, fr.result);
+                    KarateTemplateEngine engine = cached
+                            ? TemplateUtils.forResourceRoot(report.getResourceRoot())
+                            : TemplateUtils.forResourcePath(report.getJsEngine(), report.getResourceRoot());
+                    String html = cached
+                            ? engine.process(report.getTemplate(), report.getJsEngine())
+                            : engine.process(report.getTemplate());
+                    return html.length();
+                }));
+            }
+            for (Future<Integer> future : futures) {
+                assertTrue(future.get() > 0);
+            }
+            long elapsed = System.currentTimeMillis() - start;
+            double perSecond = RENDERS * 1000.0 / elapsed;
+            logger.info("cached: {} | renders: {} | threads: {} | elapsed: {} ms | renders/sec: {}",
+                    cached, RENDERS, THREADS, elapsed, String.format("%.1f", perSecond));
+            return perSecond;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testRenderThroughput() throws Exception {
+        Feature feature = Feature.read("classpath:com/intuit/karate/report/test.feature");
+        FeatureRuntime fr = FeatureRuntime.of(feature);
+        fr.run();
+        run(fr, false); // warm up
+        run(fr, true);
+        double fresh = run(fr, false);
+        double cached = run(fr, true);
+        logger.info("speedup: {}", String.format("%.2f", cached / fresh));
+    }
+
+}
@@ -1,8 +1,20 @@
 package com.intuit.karate.report;
 
+import com.intuit.karate.FileUtils;
+import com.intuit.karate.JsonUtils;
 import com.intuit.karate.core.Feature;
 import com.intuit.karate.core.FeatureRuntime;
+import com.intuit.karate.template.KarateTemplateEngine;
+import com.intuit.karate.template.TemplateUtils;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,4 +35,42 @@ class ReportUtilsTest {
         report.render("target/report-test");
     }
 
+    @Test
+    void testStreamedJsonSameAsString() {
+        Feature feature = Feature.read("classpath:com/intuit/karate/report/test.feature");
+        FeatureRuntime fr = FeatureRuntime.of(feature);
+        fr.run();
+        File file = ReportUtils.saveKarateJson("target/report-test", fr.result, null);
+        assertEquals(JsonUtils.toJson(fr.result.toKarateJson()), FileUtils.toString(file));
+        file = ReportUtils.saveCucumberJson("target/report-test", fr.result, null);
+        assertEquals(JsonUtils.toJson(Collections.singletonList(fr.result.toCucumberJson())), FileUtils.toString(file));
+    }
+
+    @Test
+    void testCachedEngineRendersConcurrently() throws Exception {
+        Feature feature = Feature.read("classpath:com/intuit/karate/report/test.feature");
+        FeatureRuntime fr = FeatureRuntime.of(feature);
+        fr.run();
+        Report report = SuiteReports.DEFAULT.featureReport(fr.suite, fr.result);
+        KarateTemplateEngine engine = TemplateUtils.forResourceRoot(report.getResourceRoot());
+        assertSame(engine, TemplateUtils.forResourceRoot(report.getResourceRoot()));
+        String expected = engine.process(report.getTemplate(), report.getJsEngine());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> futures = new ArrayList();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    // js engines are per-thread, so build the report on the worker
+                    Report r = SuiteReports.DEFAULT.featureReport(fr.suite, fr.result);
+                    return engine.process(r.getTemplate(), r.getJsEngine());
+                }));
+            }
+            for (Future<String> future : futures) {
+                assertEquals(expected, future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
 }